@@ -0,0 +1,210 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaplanner.examples.cloudbalancing;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+import org.optaplanner.examples.cloudbalancing.domain.CloudProcess;
+
+/**
+ * Reads and writes a {@link CloudBalance} in a binary format, all values big-endian:
+ * <ul>
+ *     <li>header: magic (int), version (int), solution ID (long), computer count (int), process count (int)</li>
+ *     <li>computer columns: ID (long), cpuPower, memory, networkBandwidth, cost (all int)</li>
+ *     <li>process columns: ID (long), requiredCpuPower, requiredMemory, requiredNetworkBandwidth,
+ *     index of the computer in the computer columns or -1 if unassigned (all int)</li>
+ * </ul>
+ * Each column is stored contiguously, so that it can be bulk-read from the mapped file.
+ */
+final class CloudBalanceBinaryIO {
+
+    private static final int BINARY_MAGIC = 0x43424231; // "CBB1"
+    private static final int BINARY_VERSION = 1;
+
+    private CloudBalanceBinaryIO() {
+    }
+
+    public static CloudBalance read(File inputSolutionFile) {
+        try (FileChannel channel = FileChannel.open(inputSolutionFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                return read(buffer, inputSolutionFile);
+            } finally {
+                unmap(buffer);
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Failed reading inputSolutionFile (" + inputSolutionFile + ").", e);
+        }
+    }
+
+    private static CloudBalance read(MappedByteBuffer buffer, File inputSolutionFile) {
+        if (buffer.getInt() != BINARY_MAGIC || buffer.getInt() != BINARY_VERSION) {
+            throw new IllegalArgumentException("Unsupported inputSolutionFile (" + inputSolutionFile + ").");
+        }
+        long solutionId = buffer.getLong();
+        int computerCount = buffer.getInt();
+        int processCount = buffer.getInt();
+        long[] computerIds = readLongColumn(buffer, computerCount);
+        int[] cpuPowers = readIntColumn(buffer, computerCount);
+        int[] memories = readIntColumn(buffer, computerCount);
+        int[] networkBandwidths = readIntColumn(buffer, computerCount);
+        int[] costs = readIntColumn(buffer, computerCount);
+        List<CloudComputer> computerList = new ArrayList<>(computerCount);
+        for (int i = 0; i < computerCount; i++) {
+            computerList.add(new CloudComputer(computerIds[i], cpuPowers[i], memories[i], networkBandwidths[i],
+                    costs[i]));
+        }
+        long[] processIds = readLongColumn(buffer, processCount);
+        int[] requiredCpuPowers = readIntColumn(buffer, processCount);
+        int[] requiredMemories = readIntColumn(buffer, processCount);
+        int[] requiredNetworkBandwidths = readIntColumn(buffer, processCount);
+        int[] computerIndexes = readIntColumn(buffer, processCount);
+        List<CloudProcess> processList = new ArrayList<>(processCount);
+        for (int i = 0; i < processCount; i++) {
+            CloudProcess process = new CloudProcess(processIds[i], requiredCpuPowers[i], requiredMemories[i],
+                    requiredNetworkBandwidths[i]);
+            int computerIndex = computerIndexes[i];
+            if (computerIndex >= 0) {
+                process.setComputer(computerList.get(computerIndex));
+            }
+            processList.add(process);
+        }
+        return new CloudBalance(solutionId, computerList, processList);
+    }
+
+    /**
+     * Releases the mapping right away, rather than once the buffer is garbage collected,
+     * so that reading a file over and over does not pile up mappings, and the file can be replaced on any OS.
+     * The columns have all been copied out of the buffer by then.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Object unsafe = theUnsafe.get(null);
+            try {
+                // Java 9 and later.
+                unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(unsafe, buffer);
+            } catch (NoSuchMethodException e) {
+                // Java 8.
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed unmapping the buffer.", e);
+        }
+    }
+
+    private static long[] readLongColumn(MappedByteBuffer buffer, int length) {
+        long[] column = new long[length];
+        buffer.asLongBuffer().get(column);
+        buffer.position(buffer.position() + length * Long.BYTES);
+        return column;
+    }
+
+    private static int[] readIntColumn(MappedByteBuffer buffer, int length) {
+        int[] column = new int[length];
+        buffer.asIntBuffer().get(column);
+        buffer.position(buffer.position() + length * Integer.BYTES);
+        return column;
+    }
+
+    public static void write(CloudBalance solution, File outputSolutionFile) {
+        List<CloudComputer> computerList = solution.getComputerList();
+        List<CloudProcess> processList = solution.getProcessList();
+        Map<CloudComputer, Integer> computerIndexMap = new IdentityHashMap<>(computerList.size());
+        for (int i = 0; i < computerList.size(); i++) {
+            computerIndexMap.put(computerList.get(i), i);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(outputSolutionFile)))) {
+            out.writeInt(BINARY_MAGIC);
+            out.writeInt(BINARY_VERSION);
+            out.writeLong(solution.getId() == null ? 0L : solution.getId());
+            out.writeInt(computerList.size());
+            out.writeInt(processList.size());
+            for (CloudComputer computer : computerList) {
+                out.writeLong(computer.getId());
+            }
+            for (CloudComputer computer : computerList) {
+                out.writeInt(computer.getCpuPower());
+            }
+            for (CloudComputer computer : computerList) {
+                out.writeInt(computer.getMemory());
+            }
+            for (CloudComputer computer : computerList) {
+                out.writeInt(computer.getNetworkBandwidth());
+            }
+            for (CloudComputer computer : computerList) {
+                out.writeInt(computer.getCost());
+            }
+            for (CloudProcess process : processList) {
+                out.writeLong(process.getId());
+            }
+            for (CloudProcess process : processList) {
+                out.writeInt(process.getRequiredCpuPower());
+            }
+            for (CloudProcess process : processList) {
+                out.writeInt(process.getRequiredMemory());
+            }
+            for (CloudProcess process : processList) {
+                out.writeInt(process.getRequiredNetworkBandwidth());
+            }
+            for (CloudProcess process : processList) {
+                CloudComputer computer = process.getComputer();
+                out.writeInt(computer == null ? -1 : computerIndexMap.get(computer));
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed writing outputSolutionFile (" + outputSolutionFile + ").", e);
+        }
+    }
+
+    public static void convertXml(File inputXmlFile, File outputBinaryFile) {
+        SolutionIO<CloudBalance> xmlIO = new SolutionIO<>(CloudBalance.class);
+        write(xmlIO.read(inputXmlFile), outputBinaryFile);
+    }
+
+    /**
+     * Converts every XML file given as an argument into a binary file of the same name next to it.
+     */
+    public static void main(String[] args) {
+        for (String arg : args) {
+            File inputXmlFile = new File(arg);
+            String binaryFileName = inputXmlFile.getName().replaceFirst("\\.xml$", "") + ".bin";
+            convertXml(inputXmlFile, new File(inputXmlFile.getParentFile(), binaryFileName));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+import org.optaplanner.examples.cloudbalancing.domain.CloudProcess;
+
+/**
+ * Generates fully assigned datasets of arbitrary size, so that the engines can be compared as the problem grows.
+ * Computer capacities are derived from the load assigned to them, which is how the overload ratio is guaranteed;
+ * only the CPU constraint is ever broken.
+ * The output only depends on the parameters, so every fork and every engine sees the same dataset.
+ */
+public final class CloudBalanceGenerator {
+
+    public static final String SPEC_PREFIX = "generated";
+
+    private final int computerCount;
+    private final int processCount;
+    private final double skew;
+    private final double overloadRatio;
+    private final int scale;
+
+    /**
+     * @param computerCount at least 1
+     * @param processCount at least 0
+     * @param skew share of the processes assigned to the hottest 1 % of computers, on top of their uniform share;
+     * 0 for uniform distribution
+     * @param overloadRatio probability of a computer with any processes being over its CPU capacity
+     */
+    public CloudBalanceGenerator(int computerCount, int processCount, double skew, double overloadRatio) {
+        this(computerCount, processCount, skew, overloadRatio, 1);
+    }
+
+    /**
+     * @param scale at least 1; multiplies every requirement, and therefore every capacity, but not the costs
+     */
+    public CloudBalanceGenerator(int computerCount, int processCount, double skew, double overloadRatio,
+            int scale) {
+        if (computerCount < 1 || processCount < 0) {
+            throw new IllegalArgumentException("Invalid computerCount (" + computerCount + ") or processCount ("
+                    + processCount + ").");
+        }
+        if (skew < 0 || skew > 1 || overloadRatio < 0 || overloadRatio > 1) {
+            throw new IllegalArgumentException("The skew (" + skew + ") and overloadRatio (" + overloadRatio
+                    + ") must be between 0 and 1.");
+        }
+        if (scale < 1) {
+            throw new IllegalArgumentException("Invalid scale (" + scale + ").");
+        }
+        this.computerCount = computerCount;
+        this.processCount = processCount;
+        this.skew = skew;
+        this.overloadRatio = overloadRatio;
+        this.scale = scale;
+    }
+
+    public static boolean isSpec(String dataset) {
+        return dataset.startsWith(SPEC_PREFIX + "-");
+    }
+
+    /**
+     * Parses dataset names usable as JMH parameters, which must not contain commas.
+     * The format is "generated-&lt;processCount&gt;", optionally followed by any of
+     * "-computers&lt;count&gt;" (defaults to a third of the processes, like the shipped datasets),
+     * "-skew&lt;ratio&gt;" (defaults to 0), "-overload&lt;ratio&gt;" (defaults to 0.05)
+     * and "-scale&lt;factor&gt;" (defaults to 1).
+     * For example "generated-100000-skew0.5".
+     * Unscaled requirements are all below 128, which {@link Integer#valueOf(int)} never allocates for;
+     * "-scale128" takes every one of them out of its cache.
+     */
+    public static CloudBalanceGenerator parse(String spec) {
+        String[] tokens = spec.split("-");
+        if (tokens.length < 2 || !tokens[0].equals(SPEC_PREFIX)) {
+            throw new IllegalArgumentException("Invalid dataset spec (" + spec + ").");
+        }
+        int processCount = Integer.parseInt(tokens[1]);
+        int computerCount = Math.max(1, processCount / 3);
+        double skew = 0.0;
+        double overloadRatio = 0.05;
+        int scale = 1;
+        for (int i = 2; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (token.startsWith("computers")) {
+                computerCount = Integer.parseInt(token.substring("computers".length()));
+            } else if (token.startsWith("skew")) {
+                skew = Double.parseDouble(token.substring("skew".length()));
+            } else if (token.startsWith("overload")) {
+                overloadRatio = Double.parseDouble(token.substring("overload".length()));
+            } else if (token.startsWith("scale")) {
+                scale = Integer.parseInt(token.substring("scale".length()));
+            } else {
+                throw new IllegalArgumentException("Invalid dataset spec (" + spec + "), unknown part (" + token
+                        + ").");
+            }
+        }
+        return new CloudBalanceGenerator(computerCount, processCount, skew, overloadRatio, scale);
+    }
+
+    public CloudBalance generate() {
+        Random random = new Random(0);
+        int hotComputerCount = Math.max(1, computerCount / 100);
+        List<CloudComputer> computerList = new ArrayList<>(computerCount);
+        for (int i = 0; i < computerCount; i++) {
+            computerList.add(new CloudComputer(i, 0, 0, 0, 0)); // Capacities are set once the load is known.
+        }
+        int[] cpuPowerTotal = new int[computerCount];
+        int[] memoryTotal = new int[computerCount];
+        int[] networkBandwidthTotal = new int[computerCount];
+        List<CloudProcess> processList = new ArrayList<>(processCount);
+        for (int i = 0; i < processCount; i++) {
+            // Mostly small processes with the occasional big one, similar to the shipped datasets.
+            int requiredCpuPower = scale * (1 + (int) (11 * Math.pow(random.nextDouble(), 3)));
+            int requiredMemory = scale * (1 + (int) (31 * Math.pow(random.nextDouble(), 3)));
+            int requiredNetworkBandwidth = scale * (1 + (int) (11 * Math.pow(random.nextDouble(), 3)));
+            CloudProcess process = new CloudProcess(i, requiredCpuPower, requiredMemory, requiredNetworkBandwidth);
+            int computerIndex = random.nextDouble() < skew ?
+                    random.nextInt(hotComputerCount) :
+                    random.nextInt(computerCount);
+            process.setComputer(computerList.get(computerIndex));
+            cpuPowerTotal[computerIndex] += requiredCpuPower;
+            memoryTotal[computerIndex] += requiredMemory;
+            networkBandwidthTotal[computerIndex] += requiredNetworkBandwidth;
+            processList.add(process);
+        }
+        for (int i = 0; i < computerCount; i++) {
+            CloudComputer computer = computerList.get(i);
+            int cpuTotal = cpuPowerTotal[i];
+            if (cpuTotal > 0 && random.nextDouble() < overloadRatio) {
+                computer.setCpuPower(cpuTotal - 1 - random.nextInt(Math.max(1, cpuTotal / 4)));
+            } else {
+                computer.setCpuPower(Math.max(1, cpuTotal + random.nextInt(Math.max(1, cpuTotal / 4) + 1)));
+            }
+            computer.setMemory(Math.max(1, memoryTotal[i] + random.nextInt(Math.max(1, memoryTotal[i] / 4) + 1)));
+            computer.setNetworkBandwidth(Math.max(1, networkBandwidthTotal[i]
+                    + random.nextInt(Math.max(1, networkBandwidthTotal[i] / 4) + 1)));
+            // Scaled costs would overflow the soft score of the big datasets.
+            computer.setCost((computer.getCpuPower() * 100 + computer.getMemory() * 10
+                    + computer.getNetworkBandwidth() * 20) / scale);
+        }
+        return new CloudBalance(0, computerList, processList);
+    }
+}
@@ -0,0 +1,87 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
+
+/**
+ * Cost of the individual groupBy collectors of {@link CollectorKieBase}, in all three forms.
+ * Drools' own min and max can not reverse, so every process leaving a group makes the DRL forms rescan the group.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms8G", "-Xmx8G"})
+@Warmup(iterations = 1)
+public class CollectorBenchmark {
+
+    private static final KieModuleDiskCache KIE_MODULE_CACHE =
+            new KieModuleDiskCache(KieModuleDiskCache.DEFAULT_DIRECTORY);
+
+    @Param({"groupByDrl", "groupByDrlExec", "groupBy", "accumulate", "accumulateExec"})
+    public String scoreDirectorFactoryType;
+    @Param({"count", "average", "min", "max", "toSet"})
+    public String collector;
+    // The skewed dataset has groups of around 150 processes, which is where rescanning a group shows.
+    @Param({"solved", "generated-100000", "generated-100000-skew0.5"})
+    public String dataset;
+    private CloudBalance solutionToTest;
+    private ScoreSessionSnapshot snapshot;
+    private ScoreSession session;
+    private MoveFixture moves;
+    private int move;
+
+    private KieSessionSupplier newSupplier() {
+        switch (scoreDirectorFactoryType) {
+            case "groupByDrl":
+                return new DrlBasedKieBase(collector + "CollectorGroupByRules.drl", false, KIE_MODULE_CACHE);
+            case "groupByDrlExec":
+                return new DrlBasedKieBase(collector + "CollectorGroupByRules.drl", true, KIE_MODULE_CACHE);
+            case "groupBy":
+                return new CollectorKieBase(collector);
+            case "accumulate":
+                return new DrlBasedKieBase(collector + "CollectorAccumulateRules.drl", false, KIE_MODULE_CACHE);
+            case "accumulateExec":
+                return new DrlBasedKieBase(collector + "CollectorAccumulateRules.drl", true, KIE_MODULE_CACHE);
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void createSnapshot() {
+        solutionToTest = Main.readSolution(dataset);
+        snapshot = newSupplier().snapshot(solutionToTest);
+        moves = new MoveFixture(dataset, solutionToTest);
+    }
+
+    @Setup(Level.Invocation)
+    public void createSession() {
+        session = snapshot.fork();
+        move = moves.nextChange();
+    }
+
+    @TearDown(Level.Trial)
+    public void disposeSnapshot() {
+        snapshot.dispose();
+    }
+
+    @Benchmark
+    public Blackhole changeMove(Blackhole bh) {
+        moves.change(session, move);
+        return MoveFixture.evaluate(session, bh);
+    }
+}
@@ -0,0 +1,104 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+import org.drools.core.base.accumulators.AverageAccumulateFunction;
+import org.drools.core.base.accumulators.CollectSetAccumulateFunction;
+import org.drools.model.Global;
+import org.drools.model.Model;
+import org.drools.model.PatternDSL;
+import org.drools.model.Rule;
+import org.drools.model.Variable;
+import org.drools.model.functions.accumulate.AccumulateFunction;
+import org.drools.model.impl.ModelImpl;
+import org.drools.model.view.ViewItem;
+import org.drools.modelcompiler.builder.KieBaseBuilder;
+import org.drools.modelcompiler.dsl.pattern.D;
+import org.kie.api.KieBase;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.RuleContext;
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+import org.optaplanner.examples.cloudbalancing.domain.CloudProcess;
+
+/**
+ * Executable model of the collector DRLs, which group processes by computer and penalize every computer in use
+ * by a statistic of the CPU power of its processes: their count, average, minimum, maximum or number of distinct values.
+ * Count, min and max use the int-specialized functions, which unlike Drools' own min and max support reverse;
+ * average and the distinct set use Drools' own functions, which are reversible already.
+ */
+public final class CollectorKieBase implements KieSessionSupplier {
+
+    public static final String[] COLLECTORS = {"count", "average", "min", "max", "toSet"};
+
+    private final KieBase cache;
+
+    /**
+     * @param collector one of {@link #COLLECTORS}
+     */
+    public CollectorKieBase(String collector) {
+        // The primary pattern.
+        Variable<CloudProcess> processVar = PatternDSL.declarationOf(CloudProcess.class);
+        Variable<Integer> requiredCpuPowerVar = PatternDSL.declarationOf(Integer.class);
+        // Lambdas can not be introspected, so the properties they read need to be declared for property reactivity.
+        PatternDSL.PatternDef<CloudProcess> process = PatternDSL.pattern(processVar)
+                .expr("computerIsAssigned", p -> p.getComputer() != null,
+                        PatternDSL.reactOn("computer", "requiredCpuPower"));
+
+        // The groupBy pattern; Drools' own functions need the value bound, the int-specialized ones read the process.
+        AccumulateFunction accumulateFunction;
+        ToIntFunction<Object> weigher;
+        switch (collector) {
+            case "count":
+                accumulateFunction = D.accFunction(IntCountAccumulateFunction::new);
+                weigher = count -> (Integer) count;
+                break;
+            case "average":
+                process.bind(requiredCpuPowerVar, CloudProcess::getRequiredCpuPower,
+                        PatternDSL.reactOn("requiredCpuPower"));
+                accumulateFunction = D.accFunction(AverageAccumulateFunction::new, requiredCpuPowerVar);
+                weigher = average -> ((Number) average).intValue();
+                break;
+            case "min":
+                accumulateFunction = D.accFunction(
+                        () -> IntMinMaxAccumulateFunction.min(CloudProcess::getRequiredCpuPower), processVar);
+                weigher = min -> (Integer) min;
+                break;
+            case "max":
+                accumulateFunction = D.accFunction(
+                        () -> IntMinMaxAccumulateFunction.max(CloudProcess::getRequiredCpuPower), processVar);
+                weigher = max -> (Integer) max;
+                break;
+            case "toSet":
+                process.bind(requiredCpuPowerVar, CloudProcess::getRequiredCpuPower,
+                        PatternDSL.reactOn("requiredCpuPower"));
+                accumulateFunction = D.accFunction(CollectSetAccumulateFunction::new, requiredCpuPowerVar);
+                weigher = set -> ((Set<?>) set).size();
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported collector (" + collector + ").");
+        }
+        Variable<CloudComputer> groupKeyVar = PatternDSL.declarationOf(CloudComputer.class);
+        Variable<Object> resultVar = PatternDSL.declarationOf(Object.class);
+        ViewItem groupBy = PatternDSL.groupBy(process, processVar, groupKeyVar, CloudProcess::getComputer,
+                accumulateFunction.as(resultVar));
+
+        // The global needs to be in the same package as the rule, or it will not be visible to the session.
+        String packageName = getClass().getPackage().getName();
+        Global<HardSoftScoreHolder> scoreHolderGlobal =
+                D.globalOf(HardSoftScoreHolder.class, packageName, HardSoftScoreHolder.GLOBAL_NAME);
+        Rule rule = D.rule(packageName, collector)
+                .build(groupBy,
+                        D.on(scoreHolderGlobal, resultVar)
+                                .execute((drools, scoreHolder, result) ->
+                                        scoreHolder.addSoftConstraintMatch((RuleContext) drools,
+                                                -weigher.applyAsInt(result))));
+        Model model = new ModelImpl().addGlobal(scoreHolderGlobal).addRule(rule);
+        cache = KieBaseBuilder.createKieBaseFromModel(model);
+    }
+
+    @Override
+    public KieSession get() {
+        return HardSoftScoreHolder.attach(cache.newKieSession());
+    }
+}
@@ -0,0 +1,168 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+import org.optaplanner.examples.cloudbalancing.domain.CloudProcess;
+
+/**
+ * Moves per second when several threads evaluate independent moves at once, like the move threads of a solver.
+ * Every thread has its own session from the same {@link KieSessionSupplier}, and therefore from the same KieBase,
+ * and its own copy of the processes, as moves change them; the computers are shared and never change.
+ * Each move is evaluated and undone, like in {@link LocalSearchBenchmark}.
+ * <p>
+ * The thread counts are separate benchmarks, so that a single run shows the scaling;
+ * other counts are available through "-t" on any of them.
+ * Run with "-prof gc" to see the allocation pressure, which all the threads share.
+ * {@link RuleEngineProfiler} only supports a single thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms8G", "-Xmx8G"})
+@Warmup(iterations = 2)
+public class ConcurrentEvaluationBenchmark {
+
+    @Param({"groupByDrl", "groupByDrlExec", "groupBy", "groupByInt", "accumulate", "accumulateExec",
+            "incremental"})
+    public String scoreDirectorFactoryType;
+    @Param({"solved", "generated-100000"})
+    public String dataset;
+    private CloudBalance problem;
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void readProblem() {
+        problem = Main.readSolution(dataset);
+    }
+
+    /**
+     * @return a solution with the same computers, but with processes of its own
+     */
+    private CloudBalance copyProblem() {
+        List<CloudProcess> processList = new ArrayList<>(problem.getProcessList().size());
+        for (CloudProcess original : problem.getProcessList()) {
+            CloudProcess process = new CloudProcess(original.getId(), original.getRequiredCpuPower(),
+                    original.getRequiredMemory(), original.getRequiredNetworkBandwidth());
+            process.setComputer(original.getComputer());
+            processList.add(process);
+        }
+        return new CloudBalance(problem.getId(), problem.getComputerList(), processList);
+    }
+
+    @State(Scope.Thread)
+    public static class Worker {
+
+        // Every thread starts replaying that many moves further into the traces than the previous one.
+        private static final int THREAD_MOVE_OFFSET = MoveFixture.MOVE_TRACE_LENGTH / 8;
+
+        private MoveFixture moves;
+        private ScoreSessionSnapshot snapshot;
+        private ScoreSession session;
+
+        @Setup(Level.Trial)
+        public void createSession(ConcurrentEvaluationBenchmark benchmark) {
+            CloudBalance solution = benchmark.copyProblem();
+            // Every thread gets different moves, but the same ones from run to run.
+            moves = new MoveFixture(benchmark.dataset, benchmark.problem, solution,
+                    benchmark.threadCount.getAndIncrement() * THREAD_MOVE_OFFSET);
+            snapshot = Main.newSnapshot(benchmark.scoreDirectorFactoryType, solution);
+            session = snapshot.fork();
+        }
+
+        @TearDown(Level.Trial)
+        public void disposeSession() {
+            snapshot.dispose();
+        }
+
+        private void changeMove(Blackhole bh) {
+            int move = moves.nextChange();
+            CloudProcess process = moves.getChangeMoves().getProcess(move);
+            CloudComputer originalComputer = process.getComputer();
+            moves.change(session, move);
+            MoveFixture.evaluate(session, bh);
+            MoveFixture.changeComputer(session, process, originalComputer);
+        }
+
+        private void swapMove(Blackhole bh) {
+            int move = moves.nextSwap();
+            moves.swap(session, move);
+            MoveFixture.evaluate(session, bh);
+            moves.swap(session, move);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Blackhole changeMove1Thread(Blackhole bh, Worker worker) {
+        worker.changeMove(bh);
+        return bh;
+    }
+
+    @Benchmark
+    @Threads(2)
+    public Blackhole changeMove2Threads(Blackhole bh, Worker worker) {
+        worker.changeMove(bh);
+        return bh;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Blackhole changeMove4Threads(Blackhole bh, Worker worker) {
+        worker.changeMove(bh);
+        return bh;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Blackhole changeMove8Threads(Blackhole bh, Worker worker) {
+        worker.changeMove(bh);
+        return bh;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Blackhole swapMove1Thread(Blackhole bh, Worker worker) {
+        worker.swapMove(bh);
+        return bh;
+    }
+
+    @Benchmark
+    @Threads(2)
+    public Blackhole swapMove2Threads(Blackhole bh, Worker worker) {
+        worker.swapMove(bh);
+        return bh;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Blackhole swapMove4Threads(Blackhole bh, Worker worker) {
+        worker.swapMove(bh);
+        return bh;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Blackhole swapMove8Threads(Blackhole bh, Worker worker) {
+        worker.swapMove(bh);
+        return bh;
+    }
+}
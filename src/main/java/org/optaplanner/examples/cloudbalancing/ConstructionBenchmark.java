@@ -0,0 +1,125 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+import org.optaplanner.examples.cloudbalancing.domain.CloudProcess;
+
+/**
+ * A construction heuristic, the way OptaPlanner's first fit does it: starting from a solution with no process assigned,
+ * every process is tried on every computer and then assigned to the one with the best score.
+ * That is where the groups of groupBy get created from nothing.
+ * <p>
+ * Every operation is a whole construction, from an empty solution to a fully assigned one, not counting the setup;
+ * a single construction of the shipped dataset takes tens of seconds on the slower engines.
+ * Every assignment is also timed into a histogram, which is written to {@link #ASSIGNMENT_LATENCY_RESULTS_FILE}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms8G", "-Xmx8G"})
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class ConstructionBenchmark {
+
+    // One JSON object per line and trial, appended to by every fork.
+    static final Path ASSIGNMENT_LATENCY_RESULTS_FILE = Paths.get("target", "assignment-latency.jsonl");
+
+    @Param({"groupByDrl", "groupByDrlExec", "groupBy", "groupByInt", "accumulate", "accumulateExec",
+            "incremental"})
+    public String scoreDirectorFactoryType;
+    // Other datasets are unassigned first. Each construction fires processes times computers times,
+    // so the generated dataset is much smaller than the shipped one.
+    @Param({"unsolved", "generated-1000"})
+    public String dataset;
+    private List<CloudComputer> computers;
+    private List<CloudProcess> processes;
+    private ScoreSessionSnapshot snapshot;
+    private ScoreSession session;
+    private boolean measuring;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    @Setup(Level.Iteration)
+    public void createEmptySolution(IterationParams params) {
+        measuring = params.getType() == IterationType.MEASUREMENT;
+        CloudBalance solution = Main.readSolution(dataset);
+        computers = solution.getComputerList();
+        processes = solution.getProcessList();
+        for (CloudProcess process : processes) {
+            process.setComputer(null);
+        }
+        snapshot = Main.newSnapshot(scoreDirectorFactoryType, solution);
+        session = snapshot.fork();
+    }
+
+    @TearDown(Level.Iteration)
+    public void disposeSnapshot() {
+        snapshot.dispose();
+    }
+
+    @TearDown(Level.Trial)
+    public void writeLatencies(BenchmarkParams params) throws IOException {
+        Main.appendResult(ASSIGNMENT_LATENCY_RESULTS_FILE, params, "\"processCount\":" + processes.size()
+                + ",\"computerCount\":" + computers.size()
+                + ",\"unit\":\"ns\",\"count\":" + latencies.getTotalCount()
+                + ",\"mean\":" + Math.round(latencies.getMean())
+                + ",\"p50\":" + latencies.getValueAtPercentile(50.0)
+                + ",\"p99\":" + latencies.getValueAtPercentile(99.0)
+                + ",\"max\":" + latencies.getMaxValue());
+    }
+
+    private void changeComputer(CloudProcess process, CloudComputer computer) {
+        MoveFixture.changeComputer(session, process, computer);
+        session.fireAllRules();
+    }
+
+    @Benchmark
+    public List<CloudProcess> construct() {
+        for (CloudProcess process : processes) {
+            long start = System.nanoTime();
+            assign(process);
+            if (measuring) {
+                latencies.record(System.nanoTime() - start);
+            }
+        }
+        return processes;
+    }
+
+    private void assign(CloudProcess process) {
+        CloudComputer bestComputer = null;
+        int bestHardScore = Integer.MIN_VALUE;
+        int bestSoftScore = Integer.MIN_VALUE;
+        for (CloudComputer computer : computers) {
+            changeComputer(process, computer);
+            int hardScore = session.getHardScore();
+            int softScore = session.getSoftScore();
+            if (hardScore > bestHardScore || (hardScore == bestHardScore && softScore > bestSoftScore)) {
+                bestComputer = computer;
+                bestHardScore = hardScore;
+                bestSoftScore = softScore;
+            }
+        }
+        changeComputer(process, bestComputer);
+    }
+}
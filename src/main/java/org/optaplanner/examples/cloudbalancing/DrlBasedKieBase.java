@@ -7,23 +7,79 @@ import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.drools.compiler.kie.builder.impl.InternalKieModule;
+import org.drools.modelcompiler.ExecutableModelProject;
+import org.kie.api.KieBase;
+import org.kie.api.KieBaseConfiguration;
 import org.kie.api.KieServices;
 import org.kie.api.builder.KieBuilder;
 import org.kie.api.builder.KieFileSystem;
 import org.kie.api.builder.Message;
 import org.kie.api.builder.ReleaseId;
 import org.kie.api.builder.model.KieModuleModel;
+import org.kie.api.conf.KieBaseOption;
 import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
 
 public final class DrlBasedKieBase implements KieSessionSupplier {
 
-    private final KieContainer cache;
+    private final boolean executableModel;
+    private final KieModuleDiskCache diskCache;
+    private final KieBase cache;
 
     public DrlBasedKieBase(final String drlResourceName) {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(getClass().getResourceAsStream(drlResourceName)))) {
-            String rule = reader.lines().collect(Collectors.joining(System.lineSeparator()));
-            cache = getKieContainer(null, rule);
+        this(drlResourceName, false);
+    }
+
+    public DrlBasedKieBase(final String drlResourceName, final boolean executableModel) {
+        this(drlResourceName, executableModel, null);
+    }
+
+    /**
+     * @param drlResourceName DRL file relative to this class
+     * @param executableModel true to compile the DRL into the executable model instead of interpreting it
+     * @param diskCache null to always compile the DRL
+     * @param options such as {@link org.kie.internal.conf.MultithreadEvaluationOption};
+     * they do not change the compiled KJAR, so they do not affect caching
+     */
+    public DrlBasedKieBase(final String drlResourceName, final boolean executableModel,
+            final KieModuleDiskCache diskCache, final KieBaseOption... options) {
+        this.executableModel = executableModel;
+        this.diskCache = diskCache;
+        KieContainer kieContainer = getKieContainer(null, readDrl(drlResourceName));
+        if (options.length == 0) {
+            cache = kieContainer.getKieBase();
+        } else {
+            KieBaseConfiguration configuration = KieServices.get().newKieBaseConfiguration();
+            for (KieBaseOption option : options) {
+                configuration.setOption(option);
+            }
+            cache = kieContainer.newKieBase(configuration);
+        }
+    }
+
+    /**
+     * Compiles the DRL into the disk cache, unless it is cached already, without building a KieBase;
+     * so that filling the cache does not load, let alone warm up, the rest of Drools once it is filled.
+     *
+     * @param drlResourceName see {@link #DrlBasedKieBase(String, boolean, KieModuleDiskCache, KieBaseOption...)}
+     */
+    public static void populate(final String drlResourceName, final boolean executableModel,
+            final KieModuleDiskCache diskCache) {
+        String rule = readDrl(drlResourceName);
+        String key = KieModuleDiskCache.computeKey(executableModel, rule);
+        if (!diskCache.contains(key)) {
+            KieServices ks = KieServices.get();
+            KieBuilder kieBuilder = createKieBuilder(ks, null, ks.newReleaseId("org.kie", "kjar-" + key, "1.0"),
+                    executableModel, true, toKieFiles(new String[] {rule}));
+            diskCache.store(key, ((InternalKieModule) kieBuilder.getKieModule()).getBytes());
+        }
+    }
+
+    private static String readDrl(final String drlResourceName) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                DrlBasedKieBase.class.getResourceAsStream(drlResourceName)))) {
+            return reader.lines().collect(Collectors.joining(System.lineSeparator()));
         } catch (IOException e) {
             throw new IllegalStateException(e);
         }
@@ -45,11 +101,33 @@ public final class DrlBasedKieBase implements KieSessionSupplier {
 
     @Override
     public KieSession get() {
-        return cache.newKieSession();
+        return HardSoftScoreHolder.attach(cache.newKieSession());
     }
 
     protected KieContainer getKieContainer(KieModuleModel model, String... stringRules) {
-        return getKieContainer(model, toKieFiles(stringRules));
+        if (diskCache == null) {
+            return getKieContainer(model, toKieFiles(stringRules));
+        }
+        String key = KieModuleDiskCache.computeKey(executableModel,
+                model == null ? stringRules : prepend(model.toXML(), stringRules));
+        KieServices ks = KieServices.get();
+        // The ReleaseId must be stable, as it is stored inside the cached KJAR.
+        ReleaseId releaseId = ks.newReleaseId("org.kie", "kjar-" + key, "1.0");
+        byte[] kjar = diskCache.load(key);
+        if (kjar == null) {
+            KieBuilder kieBuilder = createKieBuilder(ks, model, releaseId, toKieFiles(stringRules));
+            diskCache.store(key, ((InternalKieModule) kieBuilder.getKieModule()).getBytes());
+        } else {
+            ks.getRepository().addKieModule(ks.getResources().newByteArrayResource(kjar));
+        }
+        return ks.newKieContainer(releaseId);
+    }
+
+    private static String[] prepend(String first, String[] rest) {
+        String[] result = new String[rest.length + 1];
+        result[0] = first;
+        System.arraycopy(rest, 0, result, 1, rest.length);
+        return result;
     }
 
     protected KieContainer getKieContainer(KieModuleModel model, KieFile... stringRules) {
@@ -61,10 +139,11 @@ public final class DrlBasedKieBase implements KieSessionSupplier {
     }
 
     protected KieBuilder createKieBuilder(KieServices ks, KieModuleModel model, ReleaseId releaseId, KieFile... stringRules) {
-        return createKieBuilder(ks, model, releaseId, true, stringRules);
+        return createKieBuilder(ks, model, releaseId, executableModel, true, stringRules);
     }
 
-    protected KieBuilder createKieBuilder(KieServices ks, KieModuleModel model, ReleaseId releaseId, boolean failIfBuildError, KieFile... stringRules) {
+    private static KieBuilder createKieBuilder(KieServices ks, KieModuleModel model, ReleaseId releaseId,
+            boolean executableModel, boolean failIfBuildError, KieFile... stringRules) {
         ks.getRepository().removeKieModule(releaseId);
 
         KieFileSystem kfs = ks.newKieFileSystem();
@@ -76,8 +155,9 @@ public final class DrlBasedKieBase implements KieSessionSupplier {
             kfs.write(stringRules[i].path, stringRules[i].content);
         }
 
-        // Interesting: If you switch to Exec Model here, the rules no longer compile.
-        KieBuilder kieBuilder = ks.newKieBuilder(kfs).buildAll();
+        KieBuilder kieBuilder = executableModel ?
+                ks.newKieBuilder(kfs).buildAll(ExecutableModelProject.class) :
+                ks.newKieBuilder(kfs).buildAll();
 
         if (failIfBuildError) {
             List<Message> messages = kieBuilder.getResults().getMessages();
@@ -89,7 +169,7 @@ public final class DrlBasedKieBase implements KieSessionSupplier {
         return kieBuilder;
     }
 
-    public KieFile[] toKieFiles(String[] stringRules) {
+    public static KieFile[] toKieFiles(String[] stringRules) {
         KieFile[] kieFiles = new KieFile[stringRules.length];
         for (int i = 0; i < stringRules.length; i++) {
             kieFiles[i] = new KieFile(i, stringRules[i]);
@@ -1,16 +1,23 @@
 package org.optaplanner.examples.cloudbalancing;
 
+import java.util.function.ToIntFunction;
+
 import org.drools.core.base.accumulators.IntegerSumAccumulateFunction;
+import org.drools.model.Global;
+import org.drools.model.Index;
 import org.drools.model.Model;
 import org.drools.model.PatternDSL;
 import org.drools.model.Rule;
 import org.drools.model.Variable;
+import org.drools.model.functions.accumulate.AccumulateFunction;
 import org.drools.model.impl.ModelImpl;
 import org.drools.model.view.ViewItem;
 import org.drools.modelcompiler.builder.KieBaseBuilder;
 import org.drools.modelcompiler.dsl.pattern.D;
 import org.kie.api.KieBase;
+import org.kie.api.conf.KieBaseOption;
 import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.RuleContext;
 import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
 import org.optaplanner.examples.cloudbalancing.domain.CloudProcess;
 
@@ -19,35 +26,100 @@ public final class ExecModelBasedKieBase implements KieSessionSupplier {
     private final KieBase cache;
 
     public ExecModelBasedKieBase() {
+        this(false);
+    }
+
+    /**
+     * @param intAccumulators true to sum with {@link IntSumAccumulateFunction},
+     * false to box every requirement and sum with Drools' {@link IntegerSumAccumulateFunction}
+     * @param options such as {@link org.kie.internal.conf.MultithreadEvaluationOption}
+     */
+    public ExecModelBasedKieBase(boolean intAccumulators, KieBaseOption... options) {
+        // The global needs to be in the same package as the rules, or it will not be visible to the session.
+        String packageName = getClass().getPackage().getName();
+        Global<HardSoftScoreHolder> scoreHolderGlobal =
+                D.globalOf(HardSoftScoreHolder.class, packageName, HardSoftScoreHolder.GLOBAL_NAME);
+        Model model = new ModelImpl()
+                .addGlobal(scoreHolderGlobal)
+                .addRule(buildRequiredTotalsRule(packageName, scoreHolderGlobal, intAccumulators))
+                .addRule(buildComputerCostRule(packageName, scoreHolderGlobal));
+        cache = KieBaseBuilder.createKieBaseFromModel(model, options);
+    }
+
+    /**
+     * All three capacity constraints share a single groupBy node, which produces all three sums at once,
+     * each with an accumulate function of its own.
+     * Drools 7.43 can not filter on the results of a groupBy with more than one function,
+     * so the rule matches every computer in use and only those with an overload reach the score.
+     */
+    private static Rule buildRequiredTotalsRule(String packageName, Global<HardSoftScoreHolder> scoreHolderGlobal,
+            boolean intAccumulators) {
         // The primary pattern.
         Variable<CloudProcess> processVar = PatternDSL.declarationOf(CloudProcess.class);
-        Variable<Integer> sumOnVar = PatternDSL.declarationOf(Integer.class);
+        // Lambdas can not be introspected, so the properties they read need to be declared for property reactivity.
         PatternDSL.PatternDef<CloudProcess> process = PatternDSL.pattern(processVar)
-                .expr(p -> p.getComputer() != null)
-                .bind(sumOnVar, CloudProcess::getRequiredCpuPower);
+                .expr("computerIsAssigned", p -> p.getComputer() != null,
+                        PatternDSL.reactOn("computer", "requiredCpuPower", "requiredMemory",
+                                "requiredNetworkBandwidth"));
 
         // The groupBy pattern.
         Variable<CloudComputer> groupKeyVar = PatternDSL.declarationOf(CloudComputer.class);
-        Variable<Integer> cpuSumVar = PatternDSL.declarationOf(Integer.class);
+        Variable<Integer> cpuPowerSumVar = PatternDSL.declarationOf(Integer.class);
+        Variable<Integer> memorySumVar = PatternDSL.declarationOf(Integer.class);
+        Variable<Integer> networkBandwidthSumVar = PatternDSL.declarationOf(Integer.class);
         ViewItem groupBy = PatternDSL.groupBy(process, processVar, groupKeyVar, CloudProcess::getComputer,
-                D.accFunction(IntegerSumAccumulateFunction::new, sumOnVar).as(cpuSumVar));
-
-        // The filter after groupBy
-        ViewItem finalFilter = D.pattern(cpuSumVar)
-                .expr("someExpr", groupKeyVar, (sum, computer) -> computer.getCpuPower() < sum);
+                sum(processVar, intAccumulators, CloudProcess::getRequiredCpuPower).as(cpuPowerSumVar),
+                sum(processVar, intAccumulators, CloudProcess::getRequiredMemory).as(memorySumVar),
+                sum(processVar, intAccumulators, CloudProcess::getRequiredNetworkBandwidth)
+                        .as(networkBandwidthSumVar));
 
-        Rule rule = D.rule("requiredCpuPowerTotal")
-                .build(groupBy, finalFilter,
-                        D.on(groupKeyVar, cpuSumVar)
-                                .execute((cloudComputer, cpuSum) -> {
-                                    // Dummy operation.
+        return D.rule(packageName, "requiredTotals")
+                .build(groupBy,
+                        D.on(scoreHolderGlobal, groupKeyVar, cpuPowerSumVar, memorySumVar, networkBandwidthSumVar)
+                                .execute((drools, scoreHolder, computer, cpuPowerSum, memorySum,
+                                        networkBandwidthSum) -> {
+                                    int weight = Math.min(computer.getCpuPower() - cpuPowerSum, 0)
+                                            + Math.min(computer.getMemory() - memorySum, 0)
+                                            + Math.min(computer.getNetworkBandwidth() - networkBandwidthSum, 0);
+                                    if (cpuPowerSum > computer.getCpuPower()) {
+                                        scoreHolder.addHardConstraintMatch((RuleContext) drools, weight, computer,
+                                                cpuPowerSum);
+                                    } else if (weight < 0) {
+                                        scoreHolder.addHardConstraintMatch((RuleContext) drools, weight);
+                                    }
                                 }));
-        Model model = new ModelImpl().addRule(rule);
-        cache = KieBaseBuilder.createKieBaseFromModel(model);
+    }
+
+    /**
+     * Both functions read the process itself, see {@link IntegerSumOfAccumulateFunction}.
+     */
+    private static AccumulateFunction sum(Variable<CloudProcess> processVar, boolean intAccumulators,
+            ToIntFunction<CloudProcess> requirement) {
+        if (intAccumulators) {
+            return D.accFunction(() -> new IntSumAccumulateFunction<>(requirement), processVar);
+        } else {
+            return D.accFunction(() -> new IntegerSumOfAccumulateFunction<>(requirement), processVar);
+        }
+    }
+
+    private static Rule buildComputerCostRule(String packageName, Global<HardSoftScoreHolder> scoreHolderGlobal) {
+        Variable<CloudComputer> computerVar = PatternDSL.declarationOf(CloudComputer.class);
+        Variable<CloudProcess> processVar = PatternDSL.declarationOf(CloudProcess.class);
+        return D.rule(packageName, "computerCost")
+                .build(D.pattern(computerVar),
+                        D.exists(D.pattern(processVar)
+                                .expr("usesComputer", computerVar, (p, computer) -> p.getComputer() == computer,
+                                        D.betaIndexedBy(CloudComputer.class, Index.ConstraintType.EQUAL, 0,
+                                                CloudProcess::getComputer, computer -> computer),
+                                        PatternDSL.reactOn("computer"))),
+                        D.on(scoreHolderGlobal, computerVar)
+                                .execute((drools, scoreHolder, computer) ->
+                                        scoreHolder.addSoftConstraintMatch((RuleContext) drools,
+                                                -computer.getCost())));
     }
 
     @Override
     public KieSession get() {
-        return cache.newKieSession();
+        return HardSoftScoreHolder.attach(cache.newKieSession());
     }
 }
@@ -0,0 +1,171 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+import org.optaplanner.examples.cloudbalancing.domain.CloudProcess;
+
+/**
+ * Memory used by every type of session as the dataset grows.
+ * {@link #retainedHeap(Blackhole)} measures the heap held by a warmed session,
+ * which is everything the engine keeps on top of the solution: the accumulate memories, the groupBy groups
+ * and the GroupKey facts.
+ * JMH can not report that for single shots, so it goes to {@link #FOOTPRINT_RESULTS_FILE} instead,
+ * the smallest of the measurement iterations.
+ * It is only accurate to around a megabyte, so the small datasets mostly show the noise.
+ * The time JMH reports is of no interest, as it includes building the session and several full GCs.
+ * <p>
+ * {@link #changeMove(Blackhole, MoveSession)} and {@link #swapMove(Blackhole, MoveSession)} evaluate a single move and undo it,
+ * like {@link LocalSearchBenchmark}; run them with "-prof gc" and read "gc.alloc.rate.norm" as bytes per move.
+ * The undo is fired together with the next move, so each operation pays for the propagation of both.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms8G", "-Xmx8G"})
+public class FootprintBenchmark {
+
+    // One JSON object per line and trial, appended to by every fork.
+    static final Path FOOTPRINT_RESULTS_FILE = Paths.get("target", "footprint.jsonl");
+    // Moves made on the session before it is measured, so that its internal structures have grown.
+    private static final int WARMUP_MOVE_COUNT = 10_000;
+
+    @Param({"groupByDrl", "groupByDrlExec", "groupBy", "groupByInt", "accumulate", "accumulateExec",
+            "incremental"})
+    public String scoreDirectorFactoryType;
+    @Param({"solved", "generated-1000", "generated-10000", "generated-100000", "generated-1000000"})
+    public String dataset;
+    private CloudBalance solution;
+    private MoveFixture moves;
+    private List<CloudComputer> computers;
+    private List<CloudProcess> processes;
+    private ScoreSessionSnapshot snapshot;
+    private ScoreSession session;
+    private boolean measuring;
+    private long minRetainedBytes = Long.MAX_VALUE;
+
+    /**
+     * @return heap in use once a full GC no longer frees anything
+     */
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) { // System.gc() is only a hint; repeat until it stops making a difference.
+            System.gc();
+            long previous = used;
+            used = memory.getHeapMemoryUsage().getUsed();
+            if (used >= previous) {
+                return previous;
+            }
+        }
+        return used;
+    }
+
+    @Setup(Level.Iteration)
+    public void readSolution(IterationParams params) {
+        measuring = params.getType() == IterationType.MEASUREMENT;
+        solution = Main.readSolution(dataset);
+        computers = solution.getComputerList();
+        processes = solution.getProcessList();
+        moves = new MoveFixture(dataset, solution);
+    }
+
+    @TearDown(Level.Iteration)
+    public void disposeSnapshot() {
+        snapshot.dispose();
+        snapshot = null;
+        session = null;
+    }
+
+    @TearDown(Level.Trial)
+    public void writeRetainedHeap(BenchmarkParams params) throws IOException {
+        if (minRetainedBytes == Long.MAX_VALUE) {
+            return; // Not the retained heap benchmark.
+        }
+        Main.appendResult(FOOTPRINT_RESULTS_FILE, params, "\"processCount\":" + processes.size()
+                + ",\"computerCount\":" + computers.size()
+                + ",\"unit\":\"B\",\"retained\":" + minRetainedBytes
+                + ",\"retainedPerProcess\":" + minRetainedBytes / Math.max(1, processes.size()));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public Blackhole retainedHeap(Blackhole bh) {
+        long solutionBytes = usedHeapAfterGc();
+        snapshot = Main.newSnapshot(scoreDirectorFactoryType, solution);
+        session = snapshot.fork();
+        for (int i = 0; i < WARMUP_MOVE_COUNT; i++) {
+            moves.change(session, moves.nextChange());
+            MoveFixture.evaluate(session, bh);
+        }
+        session = snapshot.fork(); // Back to the original solution, but with the structures grown by the moves.
+        if (measuring) {
+            // GC noise only ever adds to the heap in use, so the smallest measurement is the most accurate one.
+            minRetainedBytes = Math.min(minRetainedBytes, usedHeapAfterGc() - solutionBytes);
+        }
+        return bh;
+    }
+
+    /**
+     * Builds the session of the move benchmarks once per iteration, which {@link #retainedHeap(Blackhole)} does itself.
+     */
+    @State(Scope.Benchmark)
+    public static class MoveSession {
+
+        @Setup(Level.Iteration)
+        public void createSession(FootprintBenchmark benchmark) {
+            benchmark.snapshot = Main.newSnapshot(benchmark.scoreDirectorFactoryType, benchmark.solution);
+            benchmark.session = benchmark.snapshot.fork();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2)
+    public Blackhole changeMove(Blackhole bh, MoveSession moveSession) {
+        int move = moves.nextChange();
+        CloudProcess process = moves.getChangeMoves().getProcess(move);
+        CloudComputer originalComputer = process.getComputer();
+        moves.change(session, move);
+        MoveFixture.evaluate(session, bh);
+        MoveFixture.changeComputer(session, process, originalComputer);
+        return bh;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2)
+    public Blackhole swapMove(Blackhole bh, MoveSession moveSession) {
+        int move = moves.nextSwap();
+        moves.swap(session, move);
+        MoveFixture.evaluate(session, bh);
+        moves.swap(session, move);
+        return bh;
+    }
+}
@@ -2,12 +2,18 @@ package org.optaplanner.examples.cloudbalancing;
 
 import java.util.Objects;
 
+/**
+ * Key of a group with a single key; see {@link GroupKey2} and {@link GroupKey3} for more.
+ * The hash is computed once, as keys are hashed on every lookup of their group.
+ */
 public final class GroupKey {
 
     private final Object key;
+    private final int hashCode;
 
     public GroupKey(final Object key) {
         this.key = key;
+        this.hashCode = Objects.hashCode(key);
     }
 
     public Object getKey() {
@@ -23,11 +29,11 @@ public final class GroupKey {
             return false;
         }
         final GroupKey groupKey = (GroupKey) o;
-        return Objects.equals(key, groupKey.key);
+        return hashCode == groupKey.hashCode && Objects.equals(key, groupKey.key);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(key);
+        return hashCode;
     }
 }
@@ -0,0 +1,46 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.Objects;
+
+/**
+ * Key of a group with two keys.
+ * Unlike {@link Objects#hash(Object...)}, the hash does not allocate a varargs array, and is only computed once.
+ */
+public final class GroupKey2 {
+
+    private final Object key1;
+    private final Object key2;
+    private final int hashCode;
+
+    public GroupKey2(final Object key1, final Object key2) {
+        this.key1 = key1;
+        this.key2 = key2;
+        this.hashCode = 31 * Objects.hashCode(key1) + Objects.hashCode(key2);
+    }
+
+    public Object getKey1() {
+        return key1;
+    }
+
+    public Object getKey2() {
+        return key2;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || !Objects.equals(getClass(), o.getClass())) {
+            return false;
+        }
+        final GroupKey2 groupKey = (GroupKey2) o;
+        return hashCode == groupKey.hashCode && Objects.equals(key1, groupKey.key1)
+                && Objects.equals(key2, groupKey.key2);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
@@ -0,0 +1,51 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.Objects;
+
+/**
+ * Key of a group with three keys; see {@link GroupKey2}.
+ */
+public final class GroupKey3 {
+
+    private final Object key1;
+    private final Object key2;
+    private final Object key3;
+    private final int hashCode;
+
+    public GroupKey3(final Object key1, final Object key2, final Object key3) {
+        this.key1 = key1;
+        this.key2 = key2;
+        this.key3 = key3;
+        this.hashCode = 31 * (31 * Objects.hashCode(key1) + Objects.hashCode(key2)) + Objects.hashCode(key3);
+    }
+
+    public Object getKey1() {
+        return key1;
+    }
+
+    public Object getKey2() {
+        return key2;
+    }
+
+    public Object getKey3() {
+        return key3;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || !Objects.equals(getClass(), o.getClass())) {
+            return false;
+        }
+        final GroupKey3 groupKey = (GroupKey3) o;
+        return hashCode == groupKey.hashCode && Objects.equals(key1, groupKey.key1)
+                && Objects.equals(key2, groupKey.key2) && Objects.equals(key3, groupKey.key3);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
@@ -0,0 +1,85 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
+
+/**
+ * Cost of composite group keys, on the rules of {@link SimilarProcessesKieBase}.
+ * Run with "-prof gc" to see what interning saves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms8G", "-Xmx8G"})
+@Warmup(iterations = 1)
+public class GroupKeyBenchmark {
+
+    private static final KieModuleDiskCache KIE_MODULE_CACHE =
+            new KieModuleDiskCache(KieModuleDiskCache.DEFAULT_DIRECTORY);
+
+    @Param({"groupByDrl", "groupByDrlExec", "groupBy"})
+    public String scoreDirectorFactoryType;
+    @Param({"1", "2", "3"})
+    public int keyCount;
+    @Param({"false", "true"})
+    public boolean interning;
+    @Param({"solved", "generated-100000"})
+    public String dataset;
+    private CloudBalance solutionToTest;
+    private ScoreSessionSnapshot snapshot;
+    private ScoreSession session;
+    private MoveFixture moves;
+    private int move;
+
+    private KieSessionSupplier newSupplier() {
+        switch (scoreDirectorFactoryType) {
+            case "groupByDrl":
+            case "groupByDrlExec":
+                DrlBasedKieBase kieBase = new DrlBasedKieBase("similarProcessesRules" + keyCount + ".drl",
+                        scoreDirectorFactoryType.equals("groupByDrlExec"), KIE_MODULE_CACHE);
+                return () -> GroupKeyFactory.attach(kieBase.get(), interning);
+            case "groupBy":
+                return new SimilarProcessesKieBase(keyCount, new GroupKeyFactory(interning));
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void createSnapshot() {
+        solutionToTest = Main.readSolution(dataset);
+        snapshot = newSupplier().snapshot(solutionToTest);
+        moves = new MoveFixture(dataset, solutionToTest);
+    }
+
+    @Setup(Level.Invocation)
+    public void createSession() {
+        session = snapshot.fork();
+        move = moves.nextChange();
+    }
+
+    @TearDown(Level.Trial)
+    public void disposeSnapshot() {
+        snapshot.dispose();
+    }
+
+    @Benchmark
+    public Blackhole changeMove(Blackhole bh) {
+        moves.change(session, move);
+        return MoveFixture.evaluate(session, bh);
+    }
+}
@@ -0,0 +1,87 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.kie.api.runtime.KieSession;
+
+/**
+ * Creates group keys, optionally interned so that equal keys are always the same instance.
+ * Interning saves the allocation whenever a group comes back and makes equality checks succeed on identity;
+ * in exchange, every key ever created stays reachable for as long as the factory does.
+ * Lookups of interned keys do not allocate, as they go through nested maps instead of a composite probe key.
+ * Not thread-safe.
+ */
+public final class GroupKeyFactory {
+
+    public static final String GLOBAL_NAME = "groupKeys";
+
+    private final boolean interning;
+    private final Map<Object, GroupKey> groupKeys = new HashMap<>();
+    private final Map<Object, Map<Object, GroupKey2>> groupKey2s = new HashMap<>();
+    private final Map<Object, Map<Object, Map<Object, GroupKey3>>> groupKey3s = new HashMap<>();
+
+    public GroupKeyFactory(final boolean interning) {
+        this.interning = interning;
+    }
+
+    /**
+     * @param session must declare the {@value #GLOBAL_NAME} global
+     * @return the session, for chaining
+     */
+    public static KieSession attach(final KieSession session, final boolean interning) {
+        session.setGlobal(GLOBAL_NAME, new GroupKeyFactory(interning));
+        return session;
+    }
+
+    public GroupKey of(final Object key) {
+        if (!interning) {
+            return new GroupKey(key);
+        }
+        GroupKey groupKey = groupKeys.get(key);
+        if (groupKey == null) {
+            groupKey = new GroupKey(key);
+            groupKeys.put(key, groupKey);
+        }
+        return groupKey;
+    }
+
+    public GroupKey2 of(final Object key1, final Object key2) {
+        if (!interning) {
+            return new GroupKey2(key1, key2);
+        }
+        Map<Object, GroupKey2> byKey2 = groupKey2s.get(key1);
+        if (byKey2 == null) {
+            byKey2 = new HashMap<>();
+            groupKey2s.put(key1, byKey2);
+        }
+        GroupKey2 groupKey = byKey2.get(key2);
+        if (groupKey == null) {
+            groupKey = new GroupKey2(key1, key2);
+            byKey2.put(key2, groupKey);
+        }
+        return groupKey;
+    }
+
+    public GroupKey3 of(final Object key1, final Object key2, final Object key3) {
+        if (!interning) {
+            return new GroupKey3(key1, key2, key3);
+        }
+        Map<Object, Map<Object, GroupKey3>> byKey2 = groupKey3s.get(key1);
+        if (byKey2 == null) {
+            byKey2 = new HashMap<>();
+            groupKey3s.put(key1, byKey2);
+        }
+        Map<Object, GroupKey3> byKey3 = byKey2.get(key2);
+        if (byKey3 == null) {
+            byKey3 = new HashMap<>();
+            byKey2.put(key2, byKey3);
+        }
+        GroupKey3 groupKey = byKey3.get(key3);
+        if (groupKey == null) {
+            groupKey = new GroupKey3(key1, key2, key3);
+            byKey3.put(key3, groupKey);
+        }
+        return groupKey;
+    }
+}
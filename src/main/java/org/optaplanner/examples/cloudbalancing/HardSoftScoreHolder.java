@@ -0,0 +1,158 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import org.drools.core.common.AgendaItem;
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.Match;
+import org.kie.api.runtime.rule.RuleContext;
+import org.kie.internal.event.rule.RuleEventListener;
+import org.kie.internal.event.rule.RuleEventManager;
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+
+/**
+ * Score bookkeeping the way OptaPlanner's Drools score director does it.
+ * Every rule consequence adds its weight to the score and leaves an undo callback on its match.
+ * Drools runs the callback when the match is updated or deleted,
+ * so the score always reflects the matches that currently exist.
+ * <p>
+ * With multithreaded evaluation, Drools fires the partitions in parallel,
+ * so the score is then only changed while holding the lock of the holder.
+ * <p>
+ * With {@link Indictments} enabled, the overloaded computers are tracked the same way, through the undo callbacks.
+ */
+public final class HardSoftScoreHolder {
+
+    public static final String GLOBAL_NAME = "scoreHolder";
+
+    private static final RuleEventListener UNDO_LISTENER = new RuleEventListener() {
+
+        @Override
+        public void onDeleteMatch(final Match match) {
+            undo(match);
+        }
+
+        @Override
+        public void onUpdateMatch(final Match match) {
+            undo(match); // The consequence will fire again and register the new weight.
+        }
+
+        private void undo(final Match match) {
+            AgendaItem<?> agendaItem = (AgendaItem<?>) match;
+            Runnable callback = agendaItem.getCallback();
+            if (callback != null) {
+                callback.run();
+                agendaItem.setCallback(null);
+            }
+        }
+    };
+
+    private final boolean concurrent;
+    private Indictments indictments = null;
+    private int hardScore = 0;
+    private int softScore = 0;
+
+    private HardSoftScoreHolder(final boolean concurrent) {
+        this.concurrent = concurrent;
+    }
+
+    /**
+     * @param session must declare the {@value #GLOBAL_NAME} global
+     * @return the session, for chaining
+     */
+    public static KieSession attach(final KieSession session) {
+        boolean concurrent = ((InternalKnowledgeBase) session.getKieBase()).getConfiguration()
+                .isMultithreadEvaluation();
+        session.setGlobal(GLOBAL_NAME, new HardSoftScoreHolder(concurrent));
+        ((RuleEventManager) session).addEventListener(UNDO_LISTENER);
+        return session;
+    }
+
+    public static HardSoftScoreHolder of(final KieSession session) {
+        return (HardSoftScoreHolder) session.getGlobal(GLOBAL_NAME);
+    }
+
+    /**
+     * Must be called before the first fire.
+     */
+    public Indictments enableIndictments() {
+        indictments = new Indictments();
+        return indictments;
+    }
+
+    public void addHardConstraintMatch(final RuleContext kcontext, final int weight) {
+        addHardScore(weight);
+        ((AgendaItem<?>) kcontext.getMatch()).setCallback(() -> addHardScore(-weight));
+    }
+
+    /**
+     * For the CPU constraint, which is also justified by the overloaded computer and its total,
+     * if {@link #enableIndictments()} has been called; otherwise the same as
+     * {@link #addHardConstraintMatch(RuleContext, int)}.
+     */
+    public void addHardConstraintMatch(final RuleContext kcontext, final int weight, final CloudComputer computer,
+            final int requiredCpuPowerTotal) {
+        if (indictments == null) {
+            addHardConstraintMatch(kcontext, weight);
+            return;
+        }
+        addHardScore(weight);
+        overload(computer, requiredCpuPowerTotal);
+        ((AgendaItem<?>) kcontext.getMatch()).setCallback(() -> {
+            addHardScore(-weight);
+            withdraw(computer);
+        });
+    }
+
+    public void addSoftConstraintMatch(final RuleContext kcontext, final int weight) {
+        addSoftScore(weight);
+        ((AgendaItem<?>) kcontext.getMatch()).setCallback(() -> addSoftScore(-weight));
+    }
+
+    private void addHardScore(final int weight) {
+        if (concurrent) {
+            synchronized (this) {
+                hardScore += weight;
+            }
+        } else {
+            hardScore += weight;
+        }
+    }
+
+    private void addSoftScore(final int weight) {
+        if (concurrent) {
+            synchronized (this) {
+                softScore += weight;
+            }
+        } else {
+            softScore += weight;
+        }
+    }
+
+    private void overload(final CloudComputer computer, final int requiredCpuPowerTotal) {
+        if (concurrent) {
+            synchronized (this) {
+                indictments.overload(computer, requiredCpuPowerTotal);
+            }
+        } else {
+            indictments.overload(computer, requiredCpuPowerTotal);
+        }
+    }
+
+    private void withdraw(final CloudComputer computer) {
+        if (concurrent) {
+            synchronized (this) {
+                indictments.withdraw(computer);
+            }
+        } else {
+            indictments.withdraw(computer);
+        }
+    }
+
+    public int getHardScore() {
+        return hardScore;
+    }
+
+    public int getSoftScore() {
+        return softScore;
+    }
+}
@@ -0,0 +1,222 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+import org.optaplanner.examples.cloudbalancing.domain.CloudProcess;
+
+/**
+ * Plain Java equivalent of the cloud balancing rules.
+ * Keeps the resource sums and process count of every computer in primitive arrays indexed by computer ID,
+ * and only re-checks the computers touched since the last {@link #fireAllRules()}.
+ * The computer of every process is remembered in another array indexed by process ID,
+ * which is what allows for {@link #update(Object, String...)} after the computer has already been changed.
+ * This is the baseline for the amount of work that no rule engine can avoid.
+ * <p>
+ * With {@link Indictments} tracked, every re-checked computer is indicted or acquitted as its CPU sum dictates.
+ */
+public final class IncrementalScoreCalculator implements ScoreSession {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int[] cpuPower = new int[INITIAL_CAPACITY];
+    private int[] memory = new int[INITIAL_CAPACITY];
+    private int[] networkBandwidth = new int[INITIAL_CAPACITY];
+    private int[] cost = new int[INITIAL_CAPACITY];
+    private int[] requiredCpuPowerTotal = new int[INITIAL_CAPACITY];
+    private int[] requiredMemoryTotal = new int[INITIAL_CAPACITY];
+    private int[] requiredNetworkBandwidthTotal = new int[INITIAL_CAPACITY];
+    private int[] processCount = new int[INITIAL_CAPACITY];
+    private int[] hardPenalty = new int[INITIAL_CAPACITY];
+    private int[] softPenalty = new int[INITIAL_CAPACITY];
+    private boolean[] dirty = new boolean[INITIAL_CAPACITY];
+    private int[] dirtyComputerIds = new int[INITIAL_CAPACITY];
+    private int dirtyCount = 0;
+    private int[] processComputerIds = newUnassignedArray(INITIAL_CAPACITY);
+    private int hardScore = 0;
+    private int softScore = 0;
+    private final Indictments indictments;
+    // Only kept with indictments, which need the computers themselves.
+    private CloudComputer[] computers;
+
+    public IncrementalScoreCalculator() {
+        this(false);
+    }
+
+    /**
+     * @param trackIndictments see {@link ScoreSession#getIndictments()}
+     */
+    public IncrementalScoreCalculator(final boolean trackIndictments) {
+        indictments = trackIndictments ? new Indictments() : null;
+        computers = trackIndictments ? new CloudComputer[INITIAL_CAPACITY] : null;
+    }
+
+    private static int[] newUnassignedArray(final int capacity) {
+        int[] array = new int[capacity];
+        Arrays.fill(array, -1);
+        return array;
+    }
+
+    @Override
+    public void insert(final Object fact) {
+        if (fact instanceof CloudProcess) {
+            CloudProcess process = (CloudProcess) fact;
+            int processId = process.getId().intValue();
+            if (processId >= processComputerIds.length) {
+                int oldCapacity = processComputerIds.length;
+                processComputerIds = Arrays.copyOf(processComputerIds, Math.max(processId + 1, oldCapacity * 2));
+                Arrays.fill(processComputerIds, oldCapacity, processComputerIds.length, -1);
+            }
+            assign(process, processId);
+        } else if (fact instanceof CloudComputer) {
+            markDirty(register((CloudComputer) fact));
+        }
+        if (indictments != null) {
+            indictments.insert(fact);
+        }
+    }
+
+    @Override
+    public void delete(final Object fact) {
+        if (fact instanceof CloudProcess) {
+            CloudProcess process = (CloudProcess) fact;
+            unassign(process, process.getId().intValue());
+        }
+        if (indictments != null) {
+            indictments.delete(fact);
+        }
+    }
+
+    @Override
+    public void update(final Object fact, final String... modifiedProperties) {
+        if (fact instanceof CloudProcess) {
+            CloudProcess process = (CloudProcess) fact;
+            int processId = process.getId().intValue();
+            unassign(process, processId);
+            assign(process, processId);
+        } else if (fact instanceof CloudComputer) {
+            markDirty(register((CloudComputer) fact));
+        }
+        if (indictments != null) {
+            indictments.update(fact);
+        }
+    }
+
+    private void assign(final CloudProcess process, final int processId) {
+        CloudComputer computer = process.getComputer();
+        if (computer != null) {
+            int computerId = register(computer);
+            requiredCpuPowerTotal[computerId] += process.getRequiredCpuPower();
+            requiredMemoryTotal[computerId] += process.getRequiredMemory();
+            requiredNetworkBandwidthTotal[computerId] += process.getRequiredNetworkBandwidth();
+            processCount[computerId]++;
+            processComputerIds[processId] = computerId;
+            markDirty(computerId);
+        }
+    }
+
+    private void unassign(final CloudProcess process, final int processId) {
+        int computerId = processComputerIds[processId];
+        if (computerId >= 0) {
+            requiredCpuPowerTotal[computerId] -= process.getRequiredCpuPower();
+            requiredMemoryTotal[computerId] -= process.getRequiredMemory();
+            requiredNetworkBandwidthTotal[computerId] -= process.getRequiredNetworkBandwidth();
+            processCount[computerId]--;
+            processComputerIds[processId] = -1;
+            markDirty(computerId);
+        }
+    }
+
+    /**
+     * @return the number of touched computers which are penalized
+     */
+    @Override
+    public int fireAllRules() {
+        int fired = 0;
+        for (int i = 0; i < dirtyCount; i++) {
+            int computerId = dirtyComputerIds[i];
+            dirty[computerId] = false;
+            // Undo the previous penalties of the computer, the same way a retracted match would.
+            hardScore -= hardPenalty[computerId];
+            softScore -= softPenalty[computerId];
+            int newHardPenalty = Math.min(cpuPower[computerId] - requiredCpuPowerTotal[computerId], 0)
+                    + Math.min(memory[computerId] - requiredMemoryTotal[computerId], 0)
+                    + Math.min(networkBandwidth[computerId] - requiredNetworkBandwidthTotal[computerId], 0);
+            int newSoftPenalty = processCount[computerId] > 0 ? -cost[computerId] : 0;
+            if (newHardPenalty != 0 || newSoftPenalty != 0) {
+                fired++;
+            }
+            hardPenalty[computerId] = newHardPenalty;
+            softPenalty[computerId] = newSoftPenalty;
+            hardScore += newHardPenalty;
+            softScore += newSoftPenalty;
+            if (indictments != null) {
+                if (requiredCpuPowerTotal[computerId] > cpuPower[computerId]) {
+                    indictments.overload(computers[computerId], requiredCpuPowerTotal[computerId]);
+                } else {
+                    indictments.withdraw(computers[computerId]);
+                }
+            }
+        }
+        dirtyCount = 0;
+        return fired;
+    }
+
+    @Override
+    public int getHardScore() {
+        return hardScore;
+    }
+
+    @Override
+    public int getSoftScore() {
+        return softScore;
+    }
+
+    @Override
+    public Map<CloudComputer, Indictments.Indictment> getIndictments() {
+        return indictments == null ? null : indictments.getIndictments();
+    }
+
+    @Override
+    public void dispose() {
+        // Nothing to release.
+    }
+
+    private int register(final CloudComputer computer) {
+        int computerId = computer.getId().intValue();
+        if (computerId >= cpuPower.length) {
+            int newCapacity = Math.max(computerId + 1, cpuPower.length * 2);
+            cpuPower = Arrays.copyOf(cpuPower, newCapacity);
+            memory = Arrays.copyOf(memory, newCapacity);
+            networkBandwidth = Arrays.copyOf(networkBandwidth, newCapacity);
+            cost = Arrays.copyOf(cost, newCapacity);
+            requiredCpuPowerTotal = Arrays.copyOf(requiredCpuPowerTotal, newCapacity);
+            requiredMemoryTotal = Arrays.copyOf(requiredMemoryTotal, newCapacity);
+            requiredNetworkBandwidthTotal = Arrays.copyOf(requiredNetworkBandwidthTotal, newCapacity);
+            processCount = Arrays.copyOf(processCount, newCapacity);
+            hardPenalty = Arrays.copyOf(hardPenalty, newCapacity);
+            softPenalty = Arrays.copyOf(softPenalty, newCapacity);
+            dirty = Arrays.copyOf(dirty, newCapacity);
+            dirtyComputerIds = Arrays.copyOf(dirtyComputerIds, newCapacity);
+            if (computers != null) {
+                computers = Arrays.copyOf(computers, newCapacity);
+            }
+        }
+        if (computers != null) {
+            computers[computerId] = computer;
+        }
+        cpuPower[computerId] = computer.getCpuPower();
+        memory[computerId] = computer.getMemory();
+        networkBandwidth[computerId] = computer.getNetworkBandwidth();
+        cost[computerId] = computer.getCost();
+        return computerId;
+    }
+
+    private void markDirty(final int computerId) {
+        if (!dirty[computerId]) {
+            dirty[computerId] = true;
+            dirtyComputerIds[dirtyCount++] = computerId;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
+
+/**
+ * The cost of keeping the {@link Indictments} up to date after every move, compared with not tracking them,
+ * and with computing them once from scratch at the end, see {@link IndictmentComputationBenchmark}.
+ * The more computers are overloaded, the more indictments every move creates and withdraws.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms8G", "-Xmx8G"})
+@Warmup(iterations = 1)
+public class IndictmentBenchmark {
+
+    @Param({"groupByDrl", "groupByDrlExec", "groupBy", "groupByInt", "accumulate", "accumulateExec",
+            "incremental"})
+    public String scoreDirectorFactoryType;
+    @Param({"solved", "generated-100000", "generated-100000-overload0.5"})
+    public String dataset;
+    @Param({"false", "true"})
+    public boolean trackIndictments;
+    private CloudBalance solutionToTest;
+    private ScoreSessionSnapshot snapshot;
+    private ScoreSession session;
+    private MoveFixture moves;
+    private int move;
+
+    @Setup(Level.Trial)
+    public void createSnapshot() {
+        solutionToTest = Main.readSolution(dataset);
+        snapshot = new ScoreSessionSnapshot(
+                Main.newSessionSupplier(scoreDirectorFactoryType, trackIndictments),
+                solutionToTest);
+        moves = new MoveFixture(dataset, solutionToTest);
+    }
+
+    @Setup(Level.Invocation)
+    public void createSession() {
+        session = snapshot.fork();
+        move = moves.nextChange();
+    }
+
+    @TearDown(Level.Trial)
+    public void disposeSnapshot() {
+        snapshot.dispose();
+    }
+
+    @Benchmark
+    public Blackhole changeMove(Blackhole bh) {
+        moves.change(session, move);
+        MoveFixture.evaluate(session, bh).consume(session.getIndictments());
+        return bh;
+    }
+}
@@ -0,0 +1,44 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+
+/**
+ * Computing the {@link Indictments} once from scratch at the end, the alternative to tracking them along,
+ * as measured by {@link IndictmentBenchmark}; it does not depend on the engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms8G", "-Xmx8G"})
+@Warmup(iterations = 1)
+public class IndictmentComputationBenchmark {
+
+    @Param({"solved", "generated-100000", "generated-100000-overload0.5"})
+    public String dataset;
+    private CloudBalance solutionToTest;
+
+    @Setup(Level.Trial)
+    public void readSolution() {
+        solutionToTest = Main.readSolution(dataset);
+    }
+
+    @Benchmark
+    public Map<CloudComputer, Indictments.Indictment> computeAtEnd() {
+        return Indictments.compute(solutionToTest);
+    }
+}
@@ -0,0 +1,139 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+import org.optaplanner.examples.cloudbalancing.domain.CloudProcess;
+
+/**
+ * Explains the CPU constraint: which computers are overloaded, by how much, and by which processes.
+ * The engine reports every overload as its match is created, and withdraws it as the match is retracted,
+ * so the map is maintained incrementally, move after move.
+ * The processes of every computer are indexed as they are inserted, deleted and updated,
+ * as neither the accumulate nor the groupBy rules expose the facts they matched.
+ * <p>
+ * Only the CPU constraint is explained, which is the only one the generated datasets ever break.
+ */
+public final class Indictments {
+
+    // The computer every process was indexed by, as the processes have already changed when they are updated.
+    private final Map<CloudProcess, CloudComputer> indexedComputers = new IdentityHashMap<>();
+    private final Map<CloudComputer, Set<CloudProcess>> processesByComputer = new IdentityHashMap<>();
+    private final Map<CloudComputer, Indictment> indictments = new IdentityHashMap<>();
+    private final Map<CloudComputer, Indictment> unmodifiableIndictments = Collections.unmodifiableMap(indictments);
+
+    /**
+     * Computes the indictments of a solution from scratch, which is the alternative to tracking them all along.
+     */
+    public static Map<CloudComputer, Indictment> compute(final CloudBalance solution) {
+        Indictments computed = new Indictments();
+        solution.getProcessList().forEach(computed::insert);
+        for (Map.Entry<CloudComputer, Set<CloudProcess>> entry : computed.processesByComputer.entrySet()) {
+            int requiredCpuPowerTotal = 0;
+            for (CloudProcess process : entry.getValue()) {
+                requiredCpuPowerTotal += process.getRequiredCpuPower();
+            }
+            if (requiredCpuPowerTotal > entry.getKey().getCpuPower()) {
+                computed.overload(entry.getKey(), requiredCpuPowerTotal);
+            }
+        }
+        return computed.getIndictments();
+    }
+
+    public void insert(final Object fact) {
+        if (fact instanceof CloudProcess) {
+            CloudProcess process = (CloudProcess) fact;
+            CloudComputer computer = process.getComputer();
+            indexedComputers.put(process, computer);
+            if (computer != null) {
+                processesOf(computer).add(process);
+            }
+        }
+    }
+
+    public void delete(final Object fact) {
+        if (fact instanceof CloudProcess) {
+            CloudComputer computer = indexedComputers.remove(fact);
+            if (computer != null) {
+                // The set stays even when empty, so that an indictment never holds on to a stale one.
+                processesByComputer.get(computer).remove(fact);
+            }
+        }
+    }
+
+    public void update(final Object fact) {
+        delete(fact);
+        insert(fact);
+    }
+
+    private Set<CloudProcess> processesOf(final CloudComputer computer) {
+        return processesByComputer.computeIfAbsent(computer,
+                key -> Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    /**
+     * Called as the match of an overloaded computer fires.
+     */
+    public void overload(final CloudComputer computer, final int requiredCpuPowerTotal) {
+        Indictment indictment = indictments.get(computer);
+        if (indictment == null) {
+            indictment = new Indictment(computer, Collections.unmodifiableSet(processesOf(computer)));
+            indictments.put(computer, indictment);
+        }
+        indictment.requiredCpuPowerTotal = requiredCpuPowerTotal;
+    }
+
+    /**
+     * Called as the match of an overloaded computer is retracted.
+     */
+    public void withdraw(final CloudComputer computer) {
+        indictments.remove(computer);
+    }
+
+    /**
+     * @return every overloaded computer, as of the last fire
+     */
+    public Map<CloudComputer, Indictment> getIndictments() {
+        return unmodifiableIndictments;
+    }
+
+    public static final class Indictment {
+
+        private final CloudComputer computer;
+        private final Set<CloudProcess> processes;
+        private int requiredCpuPowerTotal;
+
+        private Indictment(final CloudComputer computer, final Set<CloudProcess> processes) {
+            this.computer = computer;
+            this.processes = processes;
+        }
+
+        public CloudComputer getComputer() {
+            return computer;
+        }
+
+        /**
+         * @return more than the CPU power of the computer
+         */
+        public int getRequiredCpuPowerTotal() {
+            return requiredCpuPowerTotal;
+        }
+
+        /**
+         * @return the processes on the computer right now, which may differ from those of the sum until the next fire
+         */
+        public Set<CloudProcess> getProcesses() {
+            return processes;
+        }
+
+        @Override
+        public String toString() {
+            return computer + " (" + requiredCpuPowerTotal + "/" + computer.getCpuPower() + ", " + processes.size()
+                    + " processes)";
+        }
+    }
+}
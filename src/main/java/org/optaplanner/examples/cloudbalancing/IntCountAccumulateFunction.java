@@ -0,0 +1,65 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+
+import org.drools.core.base.accumulators.AbstractAccumulateFunction;
+
+/**
+ * Counts the accumulated facts in an int,
+ * unlike {@link org.drools.core.base.accumulators.CountAccumulateFunction} which returns a long.
+ */
+public final class IntCountAccumulateFunction
+        extends AbstractAccumulateFunction<IntCountAccumulateFunction.CountData> {
+
+    public static final class CountData implements Serializable {
+
+        private int count;
+    }
+
+    @Override
+    public void readExternal(final ObjectInput in) {
+        // Stateless.
+    }
+
+    @Override
+    public void writeExternal(final ObjectOutput out) {
+        // Stateless.
+    }
+
+    @Override
+    public CountData createContext() {
+        return new CountData();
+    }
+
+    @Override
+    public void init(final CountData data) {
+        data.count = 0;
+    }
+
+    @Override
+    public void accumulate(final CountData data, final Object value) {
+        data.count++;
+    }
+
+    @Override
+    public void reverse(final CountData data, final Object value) {
+        data.count--;
+    }
+
+    @Override
+    public Object getResult(final CountData data) {
+        return data.count;
+    }
+
+    @Override
+    public boolean supportsReverse() {
+        return true;
+    }
+
+    @Override
+    public Class<?> getResultType() {
+        return Integer.class;
+    }
+}
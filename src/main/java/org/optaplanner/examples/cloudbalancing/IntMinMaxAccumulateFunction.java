@@ -0,0 +1,129 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+import org.drools.core.base.accumulators.AbstractAccumulateFunction;
+
+/**
+ * Minimum or maximum of an int property of the accumulated facts.
+ * To support reverse, every accumulated value is kept, sorted, in a primitive array;
+ * that array only grows when a group outgrows it, so accumulate and reverse do not allocate in the steady state.
+ * Groups are expected to be small, as insertion and removal shift the array.
+ *
+ * @param <T> type of the accumulated facts
+ */
+public final class IntMinMaxAccumulateFunction<T>
+        extends AbstractAccumulateFunction<IntMinMaxAccumulateFunction.SortedValues> {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final ToIntFunction<T> mapping;
+    private final boolean max;
+
+    private IntMinMaxAccumulateFunction(final ToIntFunction<T> mapping, final boolean max) {
+        this.mapping = mapping;
+        this.max = max;
+    }
+
+    public static <T> IntMinMaxAccumulateFunction<T> min(final ToIntFunction<T> mapping) {
+        return new IntMinMaxAccumulateFunction<>(mapping, false);
+    }
+
+    public static <T> IntMinMaxAccumulateFunction<T> max(final ToIntFunction<T> mapping) {
+        return new IntMinMaxAccumulateFunction<>(mapping, true);
+    }
+
+    public static final class SortedValues implements Serializable {
+
+        private int[] values = new int[INITIAL_CAPACITY];
+        private int size;
+    }
+
+    @Override
+    public void readExternal(final ObjectInput in) {
+        // The mapping is not serializable.
+    }
+
+    @Override
+    public void writeExternal(final ObjectOutput out) {
+        // The mapping is not serializable.
+    }
+
+    @Override
+    public SortedValues createContext() {
+        return new SortedValues();
+    }
+
+    @Override
+    public void init(final SortedValues data) {
+        data.size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void accumulate(final SortedValues data, final Object value) {
+        int newValue = mapping.applyAsInt((T) value);
+        int index = Arrays.binarySearch(data.values, 0, data.size, newValue);
+        if (index < 0) {
+            index = -(index + 1);
+        }
+        if (data.size == data.values.length) {
+            data.values = Arrays.copyOf(data.values, data.size * 2);
+        }
+        System.arraycopy(data.values, index, data.values, index + 1, data.size - index);
+        data.values[index] = newValue;
+        data.size++;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void reverse(final SortedValues data, final Object value) {
+        int index = Arrays.binarySearch(data.values, 0, data.size, mapping.applyAsInt((T) value));
+        if (index < 0) {
+            throw new IllegalStateException("Impossible state: the reversed value (" + value
+                    + ") was never accumulated.");
+        }
+        System.arraycopy(data.values, index + 1, data.values, index, data.size - index - 1);
+        data.size--;
+    }
+
+    @Override
+    public Object getResult(final SortedValues data) {
+        if (data.size == 0) {
+            return null;
+        }
+        return max ? data.values[data.size - 1] : data.values[0];
+    }
+
+    @Override
+    public boolean supportsReverse() {
+        return true;
+    }
+
+    @Override
+    public Class<?> getResultType() {
+        return Integer.class;
+    }
+
+    // Drools considers functions of the same class equal, which would merge different properties and min with max.
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IntMinMaxAccumulateFunction)) {
+            return false;
+        }
+        IntMinMaxAccumulateFunction<?> other = (IntMinMaxAccumulateFunction<?>) o;
+        return mapping == other.mapping && max == other.max;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(mapping) * 31 + (max ? 1 : 0);
+    }
+}
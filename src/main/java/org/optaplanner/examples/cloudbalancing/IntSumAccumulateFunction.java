@@ -0,0 +1,88 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.util.function.ToIntFunction;
+
+import org.drools.core.base.accumulators.AbstractAccumulateFunction;
+
+/**
+ * Sums an int property of the accumulated facts.
+ * Unlike {@link org.drools.core.base.accumulators.IntegerSumAccumulateFunction}, the property is read straight from
+ * the fact, so neither binding it nor accumulating it boxes; only {@link #getResult(SumData)} does.
+ *
+ * @param <T> type of the accumulated facts
+ */
+public final class IntSumAccumulateFunction<T> extends AbstractAccumulateFunction<IntSumAccumulateFunction.SumData> {
+
+    private final ToIntFunction<T> mapping;
+
+    public IntSumAccumulateFunction(final ToIntFunction<T> mapping) {
+        this.mapping = mapping;
+    }
+
+    public static final class SumData implements Serializable {
+
+        private int total;
+    }
+
+    @Override
+    public void readExternal(final ObjectInput in) {
+        // The mapping is not serializable.
+    }
+
+    @Override
+    public void writeExternal(final ObjectOutput out) {
+        // The mapping is not serializable.
+    }
+
+    @Override
+    public SumData createContext() {
+        return new SumData();
+    }
+
+    @Override
+    public void init(final SumData data) {
+        data.total = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void accumulate(final SumData data, final Object value) {
+        data.total += mapping.applyAsInt((T) value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void reverse(final SumData data, final Object value) {
+        data.total -= mapping.applyAsInt((T) value);
+    }
+
+    @Override
+    public Object getResult(final SumData data) {
+        return data.total;
+    }
+
+    @Override
+    public boolean supportsReverse() {
+        return true;
+    }
+
+    @Override
+    public Class<?> getResultType() {
+        return Integer.class;
+    }
+
+    // Drools considers functions of the same class equal; functions of different properties must not be.
+    @Override
+    public boolean equals(final Object o) {
+        return this == o || (o instanceof IntSumAccumulateFunction
+                && mapping == ((IntSumAccumulateFunction<?>) o).mapping);
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(mapping);
+    }
+}
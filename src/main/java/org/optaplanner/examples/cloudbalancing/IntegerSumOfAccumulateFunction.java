@@ -0,0 +1,46 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.function.ToIntFunction;
+
+import org.drools.core.base.accumulators.IntegerSumAccumulateFunction;
+
+/**
+ * Drools' own {@link IntegerSumAccumulateFunction}, fed with an int property of the accumulated facts
+ * boxed into an {@link Integer}, as a binding would box it.
+ * The boxed counterpart of {@link IntSumAccumulateFunction}, for groupBys with several functions,
+ * which in Drools 7.43 can not sum bound variables: every function gets fed the same one.
+ *
+ * @param <T> type of the accumulated facts
+ */
+public final class IntegerSumOfAccumulateFunction<T> extends IntegerSumAccumulateFunction {
+
+    private final ToIntFunction<T> mapping;
+
+    public IntegerSumOfAccumulateFunction(final ToIntFunction<T> mapping) {
+        this.mapping = mapping;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void accumulate(final SumData data, final Object value) {
+        super.accumulate(data, Integer.valueOf(mapping.applyAsInt((T) value)));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void reverse(final SumData data, final Object value) {
+        super.reverse(data, Integer.valueOf(mapping.applyAsInt((T) value)));
+    }
+
+    // Drools considers functions of the same class equal; functions of different properties must not be.
+    @Override
+    public boolean equals(final Object o) {
+        return this == o || (o instanceof IntegerSumOfAccumulateFunction
+                && mapping == ((IntegerSumOfAccumulateFunction<?>) o).mapping);
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(mapping);
+    }
+}
@@ -0,0 +1,83 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.Map;
+
+import org.kie.api.runtime.KieSession;
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+
+public final class KieBasedScoreSession implements ScoreSession {
+
+    private final KieSession session;
+    private final HardSoftScoreHolder scoreHolder;
+    private final Indictments indictments;
+
+    /**
+     * @param session must have a {@link HardSoftScoreHolder} attached
+     */
+    public KieBasedScoreSession(final KieSession session) {
+        this(session, false);
+    }
+
+    /**
+     * @param session must have a {@link HardSoftScoreHolder} attached and must not have been fired yet
+     * @param trackIndictments see {@link ScoreSession#getIndictments()}
+     */
+    public KieBasedScoreSession(final KieSession session, final boolean trackIndictments) {
+        this.session = session;
+        this.scoreHolder = HardSoftScoreHolder.of(session);
+        this.indictments = trackIndictments ? scoreHolder.enableIndictments() : null;
+    }
+
+    public KieSession getKieSession() {
+        return session;
+    }
+
+    @Override
+    public void insert(final Object fact) {
+        session.insert(fact);
+        if (indictments != null) {
+            indictments.insert(fact);
+        }
+    }
+
+    @Override
+    public void delete(final Object fact) {
+        session.delete(session.getFactHandle(fact));
+        if (indictments != null) {
+            indictments.delete(fact);
+        }
+    }
+
+    @Override
+    public void update(final Object fact, final String... modifiedProperties) {
+        session.update(session.getFactHandle(fact), fact, modifiedProperties);
+        if (indictments != null) {
+            indictments.update(fact);
+        }
+    }
+
+    @Override
+    public int fireAllRules() {
+        return session.fireAllRules();
+    }
+
+    @Override
+    public int getHardScore() {
+        return scoreHolder.getHardScore();
+    }
+
+    @Override
+    public int getSoftScore() {
+        return scoreHolder.getSoftScore();
+    }
+
+    @Override
+    public Map<CloudComputer, Indictments.Indictment> getIndictments() {
+        return indictments == null ? null : indictments.getIndictments();
+    }
+
+    @Override
+    public void dispose() {
+        session.dispose();
+    }
+}
@@ -0,0 +1,120 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.drools.core.util.Drools;
+import org.drools.core.util.IoUtils;
+
+/**
+ * Stores compiled KJARs on disk, so that other JVMs (such as JMH forks) can load them instead of compiling the rules.
+ * Entries are keyed by a hash of the rule sources, the bytecode of the classes they import,
+ * the compilation mode and the Drools version, therefore a change to any of them simply results in a cache miss.
+ * Classes the rules only reach through those, such as the types of their properties, are not hashed.
+ */
+public final class KieModuleDiskCache {
+
+    // Kept here rather than in Main, so that using the cache does not build the KieBases of Main.
+    public static final Path DEFAULT_DIRECTORY = Paths.get("target", "kie-module-cache");
+
+    // The imports, function imports and globals of a DRL; a function is hashed as its class.
+    private static final Pattern CLASS_REFERENCE = Pattern.compile(
+            "^\\s*(?:import(?:\\s+function)?|global)\\s+([\\w.$]+)", Pattern.MULTILINE);
+
+    private final Path directory;
+
+    public KieModuleDiskCache(final Path directory) {
+        this.directory = directory;
+    }
+
+    public static String computeKey(final boolean executableModel, final String... stringRules) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Drools.getFullVersion().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) (executableModel ? 1 : 0));
+            for (String rule : stringRules) {
+                digest.update(rule.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0); // Separator, so that moving text between files changes the key.
+                Matcher matcher = CLASS_REFERENCE.matcher(rule);
+                while (matcher.find()) {
+                    digest.update(readClass(matcher.group(1)));
+                }
+            }
+            StringBuilder key = new StringBuilder();
+            for (byte b : digest.digest()) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param name of a class, or of a static member of one
+     * @throws IllegalArgumentException if there is no such class
+     */
+    private static byte[] readClass(final String name) {
+        ClassLoader classLoader = KieModuleDiskCache.class.getClassLoader();
+        for (String className = name; className.indexOf('.') >= 0;
+                className = className.substring(0, className.lastIndexOf('.'))) {
+            try (InputStream in = classLoader.getResourceAsStream(className.replace('.', '/') + ".class")) {
+                if (in != null) {
+                    return IoUtils.readBytesFromInputStream(in);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed reading the class (" + className + ").", e);
+            }
+        }
+        throw new IllegalArgumentException("The rules reference a class (" + name + ") which is not on the classpath.");
+    }
+
+    /**
+     * @param key see {@link #computeKey(boolean, String...)}
+     */
+    public boolean contains(final String key) {
+        return Files.exists(getFile(key));
+    }
+
+    /**
+     * @param key see {@link #computeKey(boolean, String...)}
+     * @return null if not cached
+     */
+    public byte[] load(final String key) {
+        Path file = getFile(key);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed reading cached KJAR (" + file + ").", e);
+        }
+    }
+
+    public void store(final String key, final byte[] kjar) {
+        Path file = getFile(key);
+        try {
+            Files.createDirectories(directory);
+            // Write to a temp file first, so that concurrently starting JVMs never read a partial KJAR.
+            Path tempFile = Files.createTempFile(directory, key, ".tmp");
+            Files.write(tempFile, kjar);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed writing cached KJAR (" + file + ").", e);
+        }
+    }
+
+    private Path getFile(final String key) {
+        return directory.resolve(key + ".jar");
+    }
+}
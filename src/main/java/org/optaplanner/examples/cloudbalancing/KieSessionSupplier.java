@@ -3,8 +3,17 @@ package org.optaplanner.examples.cloudbalancing;
 import java.util.function.Supplier;
 
 import org.kie.api.runtime.KieSession;
+import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
 
 @FunctionalInterface
 public interface KieSessionSupplier extends Supplier<KieSession> {
 
+    /**
+     * @param solution facts to insert into the session before the initial fire
+     * @return never null, see {@link ScoreSessionSnapshot} for the restrictions on its forks
+     */
+    default ScoreSessionSnapshot snapshot(final CloudBalance solution) {
+        return new ScoreSessionSnapshot(() -> new KieBasedScoreSession(get()), solution);
+    }
+
 }
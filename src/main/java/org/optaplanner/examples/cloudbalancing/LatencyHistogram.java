@@ -0,0 +1,81 @@
+package org.optaplanner.examples.cloudbalancing;
+
+/**
+ * Log-linear histogram of durations in nanoseconds, in the spirit of HdrHistogram.
+ * Values below {@value #SUB_BUCKET_COUNT} are counted exactly; larger ones land in buckets
+ * whose width doubles with every power of two, so any value is reported within 1/64 of its real size.
+ * Recording never allocates, which matters when it runs inside the measured code.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+
+    private final long[] counts = new long[SUB_BUCKET_COUNT + (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_HALF_COUNT];
+    private long totalCount = 0L;
+    private long totalValue = 0L;
+    private long maxValue = 0L;
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift); // Between SUB_BUCKET_HALF_COUNT and SUB_BUCKET_COUNT - 1.
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (subBucket - SUB_BUCKET_HALF_COUNT);
+    }
+
+    /**
+     * @return the largest value that would be counted at the index
+     */
+    private static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * @param value never negative
+     */
+    public void record(long value) {
+        counts[indexOf(value)]++;
+        totalCount++;
+        totalValue += value;
+        if (value > maxValue) {
+            maxValue = value;
+        }
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public double getMean() {
+        return totalCount == 0L ? 0.0 : (double) totalValue / totalCount;
+    }
+
+    public long getMaxValue() {
+        return maxValue;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the smallest recorded value which is at least as large as the given percentage of all values,
+     * rounded up to the end of its bucket but never above {@link #getMaxValue()}; 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long targetCount = Math.max(1L, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long cumulativeCount = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            cumulativeCount += counts[i];
+            if (cumulativeCount >= targetCount) {
+                return Math.min(highestValueAt(i), maxValue);
+            }
+        }
+        return 0L;
+    }
+}
@@ -0,0 +1,94 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+import org.optaplanner.examples.cloudbalancing.domain.CloudProcess;
+
+/**
+ * Moves per second, made the way a local search solver makes them.
+ * A single session lives through all the iterations; every move is evaluated and then undone,
+ * except for the occasional accepted one, which makes the solution drift over time.
+ * Like in the solver, the undo is not fired on its own, but together with the next move.
+ * The moves are replayed by a {@link MoveFixture}, recorded on the original solution;
+ * once it has drifted, the occasional move targets the computer its processes are on already.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms8G", "-Xmx8G"})
+@Warmup(iterations = 2)
+public class LocalSearchBenchmark {
+
+    @Param({"groupByDrl", "groupByDrlExec", "groupBy", "groupByInt", "accumulate", "accumulateExec",
+            "incremental"})
+    public String scoreDirectorFactoryType;
+    @Param({"solved", "halfsolved", "nearlysolved", "generated-100000"})
+    public String dataset;
+    @Param({"false", "true"})
+    public boolean inPlaceUpdate;
+    // Share of the moves which are kept instead of undone.
+    @Param({"0.001"})
+    public double acceptRatio;
+    // Only decides which moves are accepted; the moves themselves are replayed.
+    private final Random random = new Random(0);
+    private MoveFixture moves;
+    private ScoreSessionSnapshot snapshot;
+    private ScoreSession session;
+
+    @Setup(Level.Trial)
+    public void createSession() {
+        CloudBalance solution = Main.readSolution(dataset);
+        moves = new MoveFixture(dataset, solution);
+        snapshot = Main.newSnapshot(scoreDirectorFactoryType, solution);
+        session = snapshot.fork();
+    }
+
+    @TearDown(Level.Trial)
+    public void disposeSession() {
+        snapshot.dispose();
+    }
+
+    private boolean accept() {
+        return random.nextDouble() < acceptRatio;
+    }
+
+    @Benchmark
+    public Blackhole changeMove(Blackhole bh) {
+        int move = moves.nextChange();
+        CloudProcess process = moves.getChangeMoves().getProcess(move);
+        CloudComputer originalComputer = process.getComputer();
+        moves.change(session, move, inPlaceUpdate);
+        MoveFixture.evaluate(session, bh);
+        if (!accept()) {
+            MoveFixture.changeComputer(session, process, originalComputer, inPlaceUpdate);
+        }
+        return bh;
+    }
+
+    @Benchmark
+    public Blackhole swapMove(Blackhole bh) {
+        int move = moves.nextSwap();
+        moves.swap(session, move, inPlaceUpdate);
+        MoveFixture.evaluate(session, bh);
+        if (!accept()) {
+            moves.swap(session, move, inPlaceUpdate);
+        }
+        return bh;
+    }
+}
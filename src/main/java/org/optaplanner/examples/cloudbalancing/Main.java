@@ -1,13 +1,17 @@
 package org.optaplanner.examples.cloudbalancing;
 
 import java.io.File;
-import java.util.List;
-import java.util.Objects;
-import java.util.Random;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
-import org.kie.api.runtime.KieSession;
-import org.kie.api.runtime.rule.FactHandle;
+import org.drools.core.util.Drools;
+import org.openjdk.jmh.annotations.AuxCounters;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
@@ -20,10 +24,15 @@ import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
 import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
-import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
-import org.optaplanner.examples.cloudbalancing.domain.CloudProcess;
+
+/**
+ * Batches of moves, replayed by a {@link MoveFixture}, so that every engine makes the very same moves.
+ */
 
 @State(Scope.Benchmark)
 @BenchmarkMode(Mode.AverageTime)
@@ -31,92 +40,240 @@ import org.optaplanner.examples.cloudbalancing.domain.CloudProcess;
 @Fork(jvmArgs = {"-Xms8G", "-Xmx8G"})
 public class Main {
 
-    private static final Random RANDOM = new Random(0);
+    // The values of scoreDirectorFactoryType, for the tools which run outside of JMH.
+    static final String[] SCORE_DIRECTOR_FACTORY_TYPES = {"groupByDrl", "groupByDrlExec", "groupBy", "groupByInt",
+            "accumulate", "accumulateExec", "incremental"};
+    // One JSON object per line and trial, appended to by every fork.
+    static final Path LATENCY_RESULTS_FILE = Paths.get("target", "move-latency.jsonl");
+    private static final KieModuleDiskCache KIE_MODULE_CACHE = new KieModuleDiskCache(KieModuleDiskCache.DEFAULT_DIRECTORY);
     private static final KieSessionSupplier ACCUMULATE_DRL_SESSION_SUPPLIER =
-            new DrlBasedKieBase("cloudBalancingScoreRules.drl");
+            new DrlBasedKieBase("cloudBalancingScoreRules.drl", false, KIE_MODULE_CACHE);
     private static final KieSessionSupplier GROUPBY_DRL_SESSION_SUPPLIER =
-            new DrlBasedKieBase("cloudBalancingScoreRules3.drl");
+            new DrlBasedKieBase("cloudBalancingScoreRules3.drl", false, KIE_MODULE_CACHE);
+    private static final KieSessionSupplier ACCUMULATE_DRL_EXEC_MODEL_SESSION_SUPPLIER =
+            new DrlBasedKieBase("cloudBalancingScoreRules.drl", true, KIE_MODULE_CACHE);
+    private static final KieSessionSupplier GROUPBY_DRL_EXEC_MODEL_SESSION_SUPPLIER =
+            new DrlBasedKieBase("cloudBalancingScoreRules3.drl", true, KIE_MODULE_CACHE);
     private static final KieSessionSupplier GROUPBY_EXEC_MODEL_SESSION_SUPPLIER =
             new ExecModelBasedKieBase();
-    @Param({"groupByDrl", "groupBy", "accumulate"})
+    private static final KieSessionSupplier GROUPBY_INT_EXEC_MODEL_SESSION_SUPPLIER =
+            new ExecModelBasedKieBase(true);
+    // "groupByInt" is "groupBy" with int-specialized accumulate functions instead of boxing ones.
+    // The "Exec" types compile the same DRL to the executable model, which tells DRL-vs-exec-model apart
+    // from groupBy-vs-accumulate.
+    @Param({"groupByDrl", "groupByDrlExec", "groupBy", "groupByInt", "accumulate", "accumulateExec",
+            "incremental"})
     public String scoreDirectorFactoryType;
-    private CloudBalance solutionToTest = readSolution("solved");
-    private KieSession session;
-    private CloudProcess entity1;
-    private CloudProcess entity2;
-    private FactHandle entity1fh;
-    private FactHandle entity2fh;
-
-    private static CloudBalance readSolution(String id) {
+    // The unsolved dataset is not here, as it has no two processes on different computers to move between.
+    // Only the scaled dataset has requirements outside the Integer cache, which is where boxing them allocates.
+    @Param({"solved", "halfsolved", "nearlysolved", "generated-10000", "generated-100000",
+            "generated-100000-scale128", "generated-1000000"})
+    public String dataset;
+    // Whether moves are applied as session.update() with the changed property, or as delete followed by insert.
+    @Param({"false", "true"})
+    public boolean inPlaceUpdate;
+    // Moves applied before every fireAllRules(); see MoveCounters for the cost per move.
+    @Param({"1", "10", "100"})
+    public int batchSize;
+    private CloudBalance solutionToTest;
+    private ScoreSessionSnapshot snapshot;
+    private ScoreSession session;
+    private MoveFixture moves;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private boolean measuring;
+
+    static CloudBalance readSolution(String id) {
+        if (CloudBalanceGenerator.isSpec(id)) {
+            return CloudBalanceGenerator.parse(id).generate();
+        }
         SolutionIO<CloudBalance> solutionFileIO = new SolutionIO<>(CloudBalance.class);
         return solutionFileIO.read(new File("data/cloudbalancing/" + id + ".xml"));
     }
 
-    private KieSession newKieSession() {
+    /**
+     * @param scoreDirectorFactoryType any of the values of {@link #scoreDirectorFactoryType}
+     */
+    static Supplier<ScoreSession> newSessionSupplier(String scoreDirectorFactoryType) {
+        return newSessionSupplier(scoreDirectorFactoryType, false);
+    }
+
+    /**
+     * @param trackIndictments see {@link ScoreSession#getIndictments()}
+     */
+    static Supplier<ScoreSession> newSessionSupplier(String scoreDirectorFactoryType, boolean trackIndictments) {
+        KieSessionSupplier kieSessionSupplier;
         switch (scoreDirectorFactoryType) {
             case "groupByDrl":
-                return GROUPBY_DRL_SESSION_SUPPLIER.get();
+                kieSessionSupplier = GROUPBY_DRL_SESSION_SUPPLIER;
+                break;
+            case "groupByDrlExec":
+                kieSessionSupplier = GROUPBY_DRL_EXEC_MODEL_SESSION_SUPPLIER;
+                break;
             case "groupBy":
-                return GROUPBY_EXEC_MODEL_SESSION_SUPPLIER.get();
+                kieSessionSupplier = GROUPBY_EXEC_MODEL_SESSION_SUPPLIER;
+                break;
+            case "groupByInt":
+                kieSessionSupplier = GROUPBY_INT_EXEC_MODEL_SESSION_SUPPLIER;
+                break;
             case "accumulate":
-                return ACCUMULATE_DRL_SESSION_SUPPLIER.get();
+                kieSessionSupplier = ACCUMULATE_DRL_SESSION_SUPPLIER;
+                break;
+            case "accumulateExec":
+                kieSessionSupplier = ACCUMULATE_DRL_EXEC_MODEL_SESSION_SUPPLIER;
+                break;
+            case "incremental":
+                return () -> new IncrementalScoreCalculator(trackIndictments);
             default:
                 throw new IllegalStateException();
         }
+        return () -> new KieBasedScoreSession(kieSessionSupplier.get(), trackIndictments);
+    }
+
+    /**
+     * @param scoreDirectorFactoryType any of the values of {@link #scoreDirectorFactoryType}
+     */
+    static ScoreSessionSnapshot newSnapshot(String scoreDirectorFactoryType, CloudBalance solution) {
+        return new ScoreSessionSnapshot(newSessionSupplier(scoreDirectorFactoryType), solution);
+    }
+
+    @Setup(Level.Trial)
+    public void createSnapshot() {
+        solutionToTest = readSolution(dataset);
+        snapshot = newSnapshot(scoreDirectorFactoryType, solutionToTest);
+        moves = new MoveFixture(dataset, solutionToTest);
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration(IterationParams params) {
+        measuring = params.getType() == IterationType.MEASUREMENT; // Warmup latencies are not recorded.
     }
 
     @Setup(Level.Invocation)
     public void createSession() {
-        session = newKieSession();
-        solutionToTest.getProcessList()
-                .forEach(session::insert);
-        solutionToTest.getComputerList()
-                .forEach(session::insert);
-        session.fireAllRules();
-        // Pick the changes to benchmark.
-        List<CloudProcess> processes = solutionToTest.getProcessList();
-        entity1 = processes.get(RANDOM.nextInt(processes.size()));
-        entity1fh = session.getFactHandle(entity1);
-        entity2 = entity1;
-        entity2fh = session.getFactHandle(entity2);
-        while (Objects.equals(entity2.getComputer(), entity1.getComputer())) {
-            // Make sure we pick a process running on a different computer.
-            entity2 = processes.get(RANDOM.nextInt(processes.size()));
-        }
+        // Reverts the previous invocation's move instead of building the session from scratch.
+        session = snapshot.fork();
     }
 
-    @TearDown(Level.Invocation)
-    public void closeSession() {
+    @TearDown(Level.Trial)
+    public void disposeSnapshot() {
         try {
-            session.dispose(); // Close the session to prevent memory leaks.
+            snapshot.dispose(); // Close the session to prevent memory leaks.
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    private void swapBatch(Blackhole bh) {
+        for (int i = 0; i < batchSize; i++) {
+            moves.swap(session, moves.nextSwap(), inPlaceUpdate);
+        }
+        MoveFixture.evaluate(session, bh);
+    }
+
+    private void changeBatch(Blackhole bh) {
+        for (int i = 0; i < batchSize; i++) {
+            moves.change(session, moves.nextChange(), inPlaceUpdate);
+        }
+        MoveFixture.evaluate(session, bh);
+    }
+
+    @Benchmark
+    @Fork(1)
+    @Warmup(iterations = 1)
+    public Blackhole swapMove(Blackhole bh, MoveCounters counters) {
+        swapBatch(bh);
+        counters.moves += batchSize;
+        return bh;
+    }
+
     @Benchmark
     @Fork(1)
     @Warmup(iterations = 1)
-    public Blackhole swapMove(Blackhole bh) {
-        session.delete(entity1fh);
-        CloudComputer originalComputer = entity1.getComputer();
-        entity1.setComputer(entity2.getComputer());  // changes the fact
-        session.insert(entity1);
-        session.delete(entity2fh);
-        entity2.setComputer(originalComputer);  // changes the fact
-        session.insert(entity2);
-        bh.consume(session.fireAllRules()); // fireAllRules()
+    public Blackhole changeMove(Blackhole bh, MoveCounters counters) {
+        changeBatch(bh);
+        counters.moves += batchSize;
         return bh;
     }
 
+    /**
+     * Like {@link #swapMove(Blackhole, MoveCounters)}, but JMH only samples some of the invocations,
+     * so every batch is also timed into a histogram, which is written to {@link #LATENCY_RESULTS_FILE}.
+     * With a batch size of 1, every entry is a single move.
+     */
     @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
     @Fork(1)
     @Warmup(iterations = 1)
-    public Blackhole changeMove(Blackhole bh) {
-        session.delete(entity1fh);
-        entity1.setComputer(entity2.getComputer()); // changes the fact
-        session.insert(entity1);
-        bh.consume(session.fireAllRules());
+    public Blackhole swapMoveLatency(Blackhole bh) {
+        long start = System.nanoTime();
+        swapBatch(bh);
+        recordLatency(System.nanoTime() - start);
         return bh;
     }
+
+    /**
+     * See {@link #swapMoveLatency(Blackhole)}.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @Fork(1)
+    @Warmup(iterations = 1)
+    public Blackhole changeMoveLatency(Blackhole bh) {
+        long start = System.nanoTime();
+        changeBatch(bh);
+        recordLatency(System.nanoTime() - start);
+        return bh;
+    }
+
+    private void recordLatency(long nanos) {
+        if (measuring) {
+            latencies.record(nanos);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void writeLatencies(BenchmarkParams params) throws IOException {
+        if (latencies.getTotalCount() == 0L) {
+            return; // Not a latency benchmark.
+        }
+        appendResult(LATENCY_RESULTS_FILE, params, "\"unit\":\"ns\",\"count\":" + latencies.getTotalCount()
+                + ",\"mean\":" + Math.round(latencies.getMean())
+                + ",\"p50\":" + latencies.getValueAtPercentile(50.0)
+                + ",\"p99\":" + latencies.getValueAtPercentile(99.0)
+                + ",\"p99.9\":" + latencies.getValueAtPercentile(99.9)
+                + ",\"max\":" + latencies.getMaxValue());
+    }
+
+    /**
+     * Appends a JSON line with the benchmark, the Drools version, all the parameters and the given fields
+     * to the file.
+     *
+     * @param fields JSON members, without the braces
+     */
+    static void appendResult(Path file, BenchmarkParams params, String fields) throws IOException {
+        StringBuilder json = new StringBuilder("{\"benchmark\":\"").append(params.getBenchmark())
+                .append("\",\"droolsVersion\":\"").append(Drools.getFullVersion()).append('"');
+        for (String key : params.getParamsKeys()) {
+            json.append(",\"").append(key).append("\":\"").append(params.getParam(key)).append('"');
+        }
+        json.append(',').append(fields).append("}").append(System.lineSeparator());
+        Files.createDirectories(file.getParent());
+        Files.write(file, json.toString().getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * The primary result is the time per batch; this reports the time per move next to it.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class MoveCounters {
+
+        public long moves;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            moves = 0;
+        }
+    }
 }
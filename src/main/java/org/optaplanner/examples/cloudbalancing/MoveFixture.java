@@ -0,0 +1,131 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import org.openjdk.jmh.infra.Blackhole;
+import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+import org.optaplanner.examples.cloudbalancing.domain.CloudProcess;
+
+/**
+ * The moves of the benchmarks, replayed from the {@link MoveTrace}s of the dataset, so that every engine makes
+ * the very same moves; the traces are recorded into {@link MoveTrace#DIRECTORY} by the first fork which needs them.
+ * Every {@link #nextChange()} and {@link #nextSwap()} returns the index of the next move of its trace,
+ * starting again from the first once all have been made.
+ */
+final class MoveFixture {
+
+    // Moves per trace.
+    static final int MOVE_TRACE_LENGTH = 100_000;
+    // The property every move changes, in one array for all the updates rather than a new one for every call.
+    static final String[] COMPUTER_PROPERTY = {"computer"};
+
+    private final MoveTrace.Replayer changeMoves;
+    private final MoveTrace.Replayer swapMoves;
+    private int nextChangeIndex;
+    private int nextSwapIndex;
+
+    /**
+     * @param dataset see {@link Main#readSolution(String)}
+     * @param solution the dataset, as read; the moves change its processes
+     */
+    MoveFixture(String dataset, CloudBalance solution) {
+        this(dataset, solution, solution, 0);
+    }
+
+    /**
+     * @param solution the dataset, as read
+     * @param copy any copy of the solution; the moves change its processes instead
+     * @param firstMoveIndex so that fixtures of several copies make different moves
+     */
+    MoveFixture(String dataset, CloudBalance solution, CloudBalance copy, int firstMoveIndex) {
+        changeMoves = MoveTrace.load(dataset, solution, false, MOVE_TRACE_LENGTH).resolve(copy);
+        swapMoves = MoveTrace.load(dataset, solution, true, MOVE_TRACE_LENGTH).resolve(copy);
+        nextChangeIndex = firstMoveIndex % changeMoves.size();
+        nextSwapIndex = firstMoveIndex % swapMoves.size();
+    }
+
+    MoveTrace.Replayer getChangeMoves() {
+        return changeMoves;
+    }
+
+    MoveTrace.Replayer getSwapMoves() {
+        return swapMoves;
+    }
+
+    /**
+     * @return index in {@link #getChangeMoves()}
+     */
+    int nextChange() {
+        int index = nextChangeIndex;
+        nextChangeIndex = (nextChangeIndex + 1) % changeMoves.size();
+        return index;
+    }
+
+    /**
+     * @return index in {@link #getSwapMoves()}
+     */
+    int nextSwap() {
+        int index = nextSwapIndex;
+        nextSwapIndex = (nextSwapIndex + 1) % swapMoves.size();
+        return index;
+    }
+
+    /**
+     * @param index see {@link #nextChange()}
+     */
+    void change(ScoreSession session, int index) {
+        change(session, index, true);
+    }
+
+    /**
+     * @param inPlaceUpdate see {@link #changeComputer(ScoreSession, CloudProcess, CloudComputer, boolean)}
+     */
+    void change(ScoreSession session, int index, boolean inPlaceUpdate) {
+        changeComputer(session, changeMoves.getProcess(index), changeMoves.getComputer(index), inPlaceUpdate);
+    }
+
+    /**
+     * Making the same swap again undoes it.
+     *
+     * @param index see {@link #nextSwap()}
+     */
+    void swap(ScoreSession session, int index) {
+        swap(session, index, true);
+    }
+
+    /**
+     * @param inPlaceUpdate see {@link #changeComputer(ScoreSession, CloudProcess, CloudComputer, boolean)}
+     */
+    void swap(ScoreSession session, int index, boolean inPlaceUpdate) {
+        CloudProcess process = swapMoves.getProcess(index);
+        CloudProcess otherProcess = swapMoves.getOtherProcess(index);
+        CloudComputer computer = process.getComputer();
+        changeComputer(session, process, otherProcess.getComputer(), inPlaceUpdate);
+        changeComputer(session, otherProcess, computer, inPlaceUpdate);
+    }
+
+    static void changeComputer(ScoreSession session, CloudProcess process, CloudComputer computer) {
+        process.setComputer(computer);
+        session.update(process, COMPUTER_PROPERTY);
+    }
+
+    /**
+     * @param inPlaceUpdate false to delete the process and insert it again instead of updating it
+     */
+    static void changeComputer(ScoreSession session, CloudProcess process, CloudComputer computer,
+            boolean inPlaceUpdate) {
+        if (inPlaceUpdate) {
+            changeComputer(session, process, computer);
+        } else {
+            session.delete(process);
+            process.setComputer(computer);
+            session.insert(process);
+        }
+    }
+
+    static Blackhole evaluate(ScoreSession session, Blackhole bh) {
+        bh.consume(session.fireAllRules());
+        bh.consume(session.getHardScore());
+        bh.consume(session.getSoftScore());
+        return bh;
+    }
+}
@@ -0,0 +1,301 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+import org.optaplanner.examples.cloudbalancing.domain.CloudProcess;
+
+/**
+ * A fixed sequence of moves, stored as IDs so that it survives the JVM and applies to any copy of the dataset.
+ * Every engine, every fork and every Drools version replaying the trace of a dataset sees the very same moves,
+ * and picking them is no longer part of the measurement.
+ * <p>
+ * The file format is plain text, one move per line: "change &lt;processId&gt; &lt;computerId&gt;"
+ * or "swap &lt;processId&gt; &lt;processId&gt;"; lines starting with "#" are comments.
+ */
+public final class MoveTrace {
+
+    static final Path DIRECTORY = Paths.get("target", "move-traces");
+
+    private static final String CHANGE = "change";
+    private static final String SWAP = "swap";
+
+    private final boolean[] swaps;
+    private final long[] processIds;
+    // The ID of the computer for a change, of the other process for a swap.
+    private final long[] targetIds;
+
+    private MoveTrace(final boolean[] swaps, final long[] processIds, final long[] targetIds) {
+        this.swaps = swaps;
+        this.processIds = processIds;
+        this.targetIds = targetIds;
+    }
+
+    /**
+     * Records random moves of the processes to computers of other processes, which is how {@link Main} used to
+     * pick them; both processes of a move are on different computers in the given solution.
+     * Unlike retrying until a process on another computer comes up, this takes bounded time on skewed data.
+     *
+     * @param swap true for swap moves, false for change moves
+     * @throws IllegalArgumentException if no two processes are on different computers
+     */
+    public static MoveTrace generate(final CloudBalance solution, final boolean swap, final int moveCount,
+            final long seed) {
+        List<CloudProcess> processes = solution.getProcessList();
+        Random random = new Random(seed);
+        Recorder recorder = new Recorder(moveCount);
+        for (int i = 0; i < moveCount; i++) {
+            CloudProcess process = processes.get(random.nextInt(processes.size()));
+            CloudProcess other = null;
+            int start = random.nextInt(processes.size());
+            for (int j = 0; j < processes.size() && other == null; j++) {
+                CloudProcess candidate = processes.get((start + j) % processes.size());
+                if (candidate.getComputer() != process.getComputer()) {
+                    other = candidate;
+                }
+            }
+            if (other == null) {
+                throw new IllegalArgumentException("The process (" + process + ") is on the same computer ("
+                        + process.getComputer() + ") as all the other processes.");
+            }
+            if (swap) {
+                recorder.swap(process, other);
+            } else {
+                recorder.change(process, other.getComputer());
+            }
+        }
+        return recorder.build();
+    }
+
+    /**
+     * Reads the trace of the dataset from {@link #DIRECTORY}, recording and storing it first if there is none yet,
+     * so that all the forks share it.
+     * The file name includes a hash of the contents of the dataset, so that a dataset which has changed since,
+     * for example by a change to the generator, gets a trace of its own.
+     *
+     * @param dataset see {@link Main#readSolution(String)}
+     * @param solution the dataset, as read
+     */
+    public static MoveTrace load(final String dataset, final CloudBalance solution, final boolean swap,
+            final int moveCount) {
+        Path file = DIRECTORY.resolve(dataset + "-" + hash(solution) + "-" + (swap ? SWAP : CHANGE) + "-"
+                + moveCount + ".trace");
+        if (!Files.exists(file)) {
+            generate(solution, swap, moveCount, 0L).write(file);
+        }
+        return read(file);
+    }
+
+    /**
+     * @return hex of the first 8 bytes of a SHA-256 of every fact, including the computer of every process
+     */
+    static String hash(final CloudBalance solution) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer buffer = ByteBuffer.allocate(5 * Long.BYTES);
+            for (CloudComputer computer : solution.getComputerList()) {
+                buffer.clear();
+                buffer.putLong(computer.getId()).putLong(computer.getCpuPower()).putLong(computer.getMemory())
+                        .putLong(computer.getNetworkBandwidth()).putLong(computer.getCost());
+                digest.update(buffer.array(), 0, buffer.position());
+            }
+            for (CloudProcess process : solution.getProcessList()) {
+                CloudComputer computer = process.getComputer();
+                buffer.clear();
+                buffer.putLong(process.getId()).putLong(process.getRequiredCpuPower())
+                        .putLong(process.getRequiredMemory()).putLong(process.getRequiredNetworkBandwidth())
+                        .putLong(computer == null ? -1L : computer.getId());
+                digest.update(buffer.array(), 0, buffer.position());
+            }
+            StringBuilder hash = new StringBuilder();
+            byte[] bytes = digest.digest();
+            for (int i = 0; i < 8; i++) {
+                hash.append(String.format("%02x", bytes[i]));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static MoveTrace read(final Path file) {
+        Recorder recorder = new Recorder(1024);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] tokens = line.split(" ");
+                if (tokens.length != 3 || !(tokens[0].equals(CHANGE) || tokens[0].equals(SWAP))) {
+                    throw new IllegalStateException("Invalid move (" + line + ") in trace (" + file + ").");
+                }
+                recorder.add(tokens[0].equals(SWAP), Long.parseLong(tokens[1]), Long.parseLong(tokens[2]));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed reading trace (" + file + ").", e);
+        }
+        return recorder.build();
+    }
+
+    public void write(final Path file) {
+        try {
+            Files.createDirectories(file.getParent());
+            // Write to a temp file first, so that concurrently starting JVMs never read a partial trace.
+            Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                for (int i = 0; i < size(); i++) {
+                    writer.write((swaps[i] ? SWAP : CHANGE) + " " + processIds[i] + " " + targetIds[i]);
+                    writer.newLine();
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed writing trace (" + file + ").", e);
+        }
+    }
+
+    public int size() {
+        return swaps.length;
+    }
+
+    /**
+     * Looks up all the IDs up front, so that replaying does nothing but apply the moves.
+     *
+     * @param solution any copy of the dataset the trace was recorded on
+     * @throws IllegalArgumentException if the solution lacks any of the IDs
+     */
+    public Replayer resolve(final CloudBalance solution) {
+        Map<Long, CloudProcess> processesById = new HashMap<>();
+        for (CloudProcess process : solution.getProcessList()) {
+            processesById.put(process.getId(), process);
+        }
+        Map<Long, CloudComputer> computersById = new HashMap<>();
+        for (CloudComputer computer : solution.getComputerList()) {
+            computersById.put(computer.getId(), computer);
+        }
+        CloudProcess[] processes = new CloudProcess[size()];
+        CloudProcess[] otherProcesses = new CloudProcess[size()];
+        CloudComputer[] computers = new CloudComputer[size()];
+        for (int i = 0; i < size(); i++) {
+            processes[i] = resolve(processesById, processIds[i]);
+            if (swaps[i]) {
+                otherProcesses[i] = resolve(processesById, targetIds[i]);
+            } else {
+                computers[i] = resolve(computersById, targetIds[i]);
+            }
+        }
+        return new Replayer(processes, otherProcesses, computers);
+    }
+
+    private static <T> T resolve(final Map<Long, T> byId, final long id) {
+        T fact = byId.get(id);
+        if (fact == null) {
+            throw new IllegalArgumentException("The solution has no fact with the ID (" + id
+                    + "); the trace was recorded on another dataset.");
+        }
+        return fact;
+    }
+
+    /**
+     * Builds a trace from the moves made by any other code, for example a solver, in the order they are made.
+     */
+    public static final class Recorder {
+
+        private boolean[] swaps;
+        private long[] processIds;
+        private long[] targetIds;
+        private int size = 0;
+
+        public Recorder(final int expectedMoveCount) {
+            swaps = new boolean[Math.max(1, expectedMoveCount)];
+            processIds = new long[swaps.length];
+            targetIds = new long[swaps.length];
+        }
+
+        public void change(final CloudProcess process, final CloudComputer computer) {
+            add(false, process.getId(), computer.getId());
+        }
+
+        public void swap(final CloudProcess process, final CloudProcess otherProcess) {
+            add(true, process.getId(), otherProcess.getId());
+        }
+
+        private void add(final boolean swap, final long processId, final long targetId) {
+            if (size == swaps.length) {
+                swaps = Arrays.copyOf(swaps, size * 2);
+                processIds = Arrays.copyOf(processIds, size * 2);
+                targetIds = Arrays.copyOf(targetIds, size * 2);
+            }
+            swaps[size] = swap;
+            processIds[size] = processId;
+            targetIds[size] = targetId;
+            size++;
+        }
+
+        public MoveTrace build() {
+            return new MoveTrace(Arrays.copyOf(swaps, size), Arrays.copyOf(processIds, size),
+                    Arrays.copyOf(targetIds, size));
+        }
+    }
+
+    /**
+     * A trace resolved against a solution; moves are addressed by their index in the trace.
+     * A swap exchanges the computers the processes have when it is applied, a change always targets the same computer.
+     */
+    public static final class Replayer {
+
+        private final CloudProcess[] processes;
+        private final CloudProcess[] otherProcesses;
+        private final CloudComputer[] computers;
+
+        private Replayer(final CloudProcess[] processes, final CloudProcess[] otherProcesses,
+                final CloudComputer[] computers) {
+            this.processes = processes;
+            this.otherProcesses = otherProcesses;
+            this.computers = computers;
+        }
+
+        public int size() {
+            return processes.length;
+        }
+
+        public boolean isSwap(final int index) {
+            return otherProcesses[index] != null;
+        }
+
+        public CloudProcess getProcess(final int index) {
+            return processes[index];
+        }
+
+        /**
+         * @return null for a change
+         */
+        public CloudProcess getOtherProcess(final int index) {
+            return otherProcesses[index];
+        }
+
+        /**
+         * @return null for a swap
+         */
+        public CloudComputer getComputer(final int index) {
+            return computers[index];
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.concurrent.TimeUnit;
+
+import org.kie.api.conf.KieBaseOption;
+import org.kie.internal.conf.MultithreadEvaluationOption;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
+
+/**
+ * Drools' multithreaded evaluation, which splits the network into partitions and evaluates them in parallel,
+ * all within a single session.
+ * The partition count is not configurable in Drools 7; it is the number of processors the JVM sees,
+ * so the partition counts are separate benchmarks which fork with "-XX:ActiveProcessorCount".
+ * {@link #changeMoveSequential(Blackhole)} is the baseline, without multithreaded evaluation
+ * and with all the processors.
+ * <p>
+ * Larger batches give every partition more to do in a single {@link ScoreSession#fireAllRules()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms8G", "-Xmx8G"})
+@Warmup(iterations = 1)
+public class MultithreadEvaluationBenchmark {
+
+    private static final KieModuleDiskCache KIE_MODULE_CACHE =
+            new KieModuleDiskCache(KieModuleDiskCache.DEFAULT_DIRECTORY);
+
+    @Param({"groupByDrl", "groupByDrlExec", "groupBy", "accumulate", "accumulateExec"})
+    public String scoreDirectorFactoryType;
+    @Param({"solved", "generated-100000", "generated-1000000"})
+    public String dataset;
+    @Param({"1", "1000"})
+    public int batchSize;
+    private CloudBalance solutionToTest;
+    private ScoreSessionSnapshot snapshot;
+    private ScoreSession session;
+    private MoveFixture moves;
+
+    private KieSessionSupplier newSupplier(boolean multithreadEvaluation) {
+        KieBaseOption[] options = multithreadEvaluation
+                ? new KieBaseOption[] {MultithreadEvaluationOption.YES}
+                : new KieBaseOption[0];
+        switch (scoreDirectorFactoryType) {
+            case "groupByDrl":
+                return new DrlBasedKieBase("cloudBalancingScoreRules3.drl", false, KIE_MODULE_CACHE, options);
+            case "groupByDrlExec":
+                return new DrlBasedKieBase("cloudBalancingScoreRules3.drl", true, KIE_MODULE_CACHE, options);
+            case "groupBy":
+                return new ExecModelBasedKieBase(false, options);
+            case "accumulate":
+                return new DrlBasedKieBase("cloudBalancingScoreRules.drl", false, KIE_MODULE_CACHE, options);
+            case "accumulateExec":
+                return new DrlBasedKieBase("cloudBalancingScoreRules.drl", true, KIE_MODULE_CACHE, options);
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void createSnapshot(BenchmarkParams params) {
+        solutionToTest = Main.readSolution(dataset);
+        boolean multithreadEvaluation = !params.getBenchmark().endsWith("Sequential");
+        snapshot = newSupplier(multithreadEvaluation).snapshot(solutionToTest);
+        moves = new MoveFixture(dataset, solutionToTest);
+    }
+
+    @Setup(Level.Invocation)
+    public void createSession() {
+        session = snapshot.fork();
+    }
+
+    @TearDown(Level.Trial)
+    public void disposeSnapshot() {
+        snapshot.dispose();
+    }
+
+    private Blackhole changeBatch(Blackhole bh) {
+        for (int i = 0; i < batchSize; i++) {
+            moves.change(session, moves.nextChange());
+        }
+        return MoveFixture.evaluate(session, bh);
+    }
+
+    @Benchmark
+    public Blackhole changeMoveSequential(Blackhole bh) {
+        return changeBatch(bh);
+    }
+
+    @Benchmark
+    @Fork(jvmArgsAppend = "-XX:ActiveProcessorCount=2")
+    public Blackhole changeMove2Partitions(Blackhole bh) {
+        return changeBatch(bh);
+    }
+
+    @Benchmark
+    @Fork(jvmArgsAppend = "-XX:ActiveProcessorCount=4")
+    public Blackhole changeMove4Partitions(Blackhole bh) {
+        return changeBatch(bh);
+    }
+
+    @Benchmark
+    @Fork(jvmArgsAppend = "-XX:ActiveProcessorCount=8")
+    public Blackhole changeMove8Partitions(Blackhole bh) {
+        return changeBatch(bh);
+    }
+}
@@ -0,0 +1,294 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+import org.optaplanner.examples.cloudbalancing.domain.CloudProcess;
+
+/**
+ * Real-time planning: bursts of problem fact changes applied to a warmed session, each followed by a single fire.
+ * Computers are decommissioned with their processes moved elsewhere, or added with processes moved onto them;
+ * batches of processes arrive or finish.
+ * With groupBy, whole groups appear and vanish, unlike with moves of a single process.
+ * <p>
+ * Every burst is undone outside of the measurement, so every invocation starts from the original solution.
+ * The computers and processes are picked from the moves of the {@link MoveFixture}, as the benchmarks of moves do.
+ * Processes are moved by a delete and an insert, as the removal of a computer would otherwise mix updates and deletes,
+ * see {@link UpdateDeleteReproducer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms8G", "-Xmx8G"})
+@Warmup(iterations = 1)
+public class ProblemChangeBenchmark {
+
+    @Param({"groupByDrl", "groupByDrlExec", "groupBy", "groupByInt", "accumulate", "accumulateExec",
+            "incremental"})
+    public String scoreDirectorFactoryType;
+    @Param({"solved", "generated-100000"})
+    public String dataset;
+    // Computers or processes added or removed by every burst.
+    @Param({"1", "10", "100"})
+    public int burstSize;
+    private List<CloudComputer> computers;
+    private List<CloudProcess> processes;
+    private final Map<CloudComputer, List<CloudProcess>> processesByComputer = new IdentityHashMap<>();
+    private long nextComputerId;
+    private long nextProcessId;
+    private ScoreSessionSnapshot snapshot;
+    private ScoreSession session;
+    private MoveFixture moves;
+
+    @Setup(Level.Trial)
+    public void createSession() {
+        CloudBalance solution = Main.readSolution(dataset);
+        computers = solution.getComputerList();
+        processes = solution.getProcessList();
+        for (CloudComputer computer : computers) {
+            nextComputerId = Math.max(nextComputerId, computer.getId() + 1);
+        }
+        for (CloudProcess process : processes) {
+            nextProcessId = Math.max(nextProcessId, process.getId() + 1);
+            if (process.getComputer() != null) {
+                processesByComputer.computeIfAbsent(process.getComputer(), computer -> new ArrayList<>())
+                        .add(process);
+            }
+        }
+        snapshot = Main.newSnapshot(scoreDirectorFactoryType, solution);
+        session = snapshot.fork();
+        moves = new MoveFixture(dataset, solution);
+    }
+
+    @TearDown(Level.Trial)
+    public void disposeSnapshot() {
+        snapshot.dispose();
+    }
+
+    private CloudComputer nextComputer() {
+        return moves.getChangeMoves().getComputer(moves.nextChange());
+    }
+
+    private CloudProcess nextProcess() {
+        return moves.getChangeMoves().getProcess(moves.nextChange());
+    }
+
+    /**
+     * @throws IllegalStateException if a whole trace of moves did not come up with one
+     */
+    private CloudComputer nextComputerExcept(List<CloudComputer> excludedComputers) {
+        for (int i = 0; i < moves.getChangeMoves().size(); i++) {
+            CloudComputer computer = nextComputer();
+            if (!excludedComputers.contains(computer)) {
+                return computer;
+            }
+        }
+        throw new IllegalStateException("The moves of the dataset (" + dataset + ") have no computer other than ("
+                + excludedComputers.size() + ") excluded ones.");
+    }
+
+    /**
+     * @throws IllegalStateException if a whole trace of moves did not come up with one
+     */
+    private CloudProcess nextProcessExcept(List<CloudProcess> excludedProcesses) {
+        for (int i = 0; i < moves.getChangeMoves().size(); i++) {
+            CloudProcess process = nextProcess();
+            if (!excludedProcesses.contains(process)) {
+                return process;
+            }
+        }
+        throw new IllegalStateException("The moves of the dataset (" + dataset + ") have no process other than ("
+                + excludedProcesses.size() + ") excluded ones.");
+    }
+
+    @State(Scope.Thread)
+    public static class ComputerRemoval {
+
+        private final List<CloudComputer> removedComputers = new ArrayList<>();
+        private final List<CloudProcess> evictedProcesses = new ArrayList<>();
+        private final List<CloudComputer> originalComputers = new ArrayList<>();
+        private final List<CloudComputer> targetComputers = new ArrayList<>();
+        private ProblemChangeBenchmark benchmark;
+
+        @Setup(Level.Invocation)
+        public void pick(ProblemChangeBenchmark benchmark) {
+            this.benchmark = benchmark;
+            removedComputers.clear();
+            evictedProcesses.clear();
+            originalComputers.clear();
+            targetComputers.clear();
+            for (int i = 0; i < benchmark.burstSize; i++) {
+                removedComputers.add(benchmark.nextComputerExcept(removedComputers));
+            }
+            for (CloudComputer computer : removedComputers) {
+                for (CloudProcess process : benchmark.processesByComputer.getOrDefault(computer,
+                        Collections.emptyList())) {
+                    evictedProcesses.add(process);
+                    originalComputers.add(computer);
+                    targetComputers.add(benchmark.nextComputerExcept(removedComputers));
+                }
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void restore() {
+            removedComputers.forEach(benchmark.session::insert);
+            for (int i = 0; i < evictedProcesses.size(); i++) {
+                MoveFixture.changeComputer(benchmark.session, evictedProcesses.get(i), originalComputers.get(i),
+                        false);
+            }
+            benchmark.session.fireAllRules();
+        }
+    }
+
+    @Benchmark
+    public Blackhole removeComputers(Blackhole bh, ComputerRemoval removal) {
+        for (int i = 0; i < removal.evictedProcesses.size(); i++) {
+            MoveFixture.changeComputer(session, removal.evictedProcesses.get(i), removal.targetComputers.get(i),
+                    false);
+        }
+        removal.removedComputers.forEach(session::delete);
+        return MoveFixture.evaluate(session, bh);
+    }
+
+    @State(Scope.Thread)
+    public static class ComputerAddition {
+
+        // The same new computers in every invocation, so that the IDs do not keep growing.
+        private final List<CloudComputer> addedComputers = new ArrayList<>();
+        private final List<CloudProcess> movedProcesses = new ArrayList<>();
+        private final List<CloudComputer> originalComputers = new ArrayList<>();
+        private final List<CloudComputer> targetComputers = new ArrayList<>();
+        private ProblemChangeBenchmark benchmark;
+
+        @Setup(Level.Invocation)
+        public void pick(ProblemChangeBenchmark benchmark) {
+            // JMH 1.25 can not generate a state with several helper methods depending on the same other state,
+            // so the computers are created by the first invocation instead of by a trial setup.
+            if (this.benchmark == null) {
+                this.benchmark = benchmark;
+                for (int i = 0; i < benchmark.burstSize; i++) {
+                    CloudComputer template = benchmark.nextComputer();
+                    addedComputers.add(new CloudComputer(benchmark.nextComputerId + i, template.getCpuPower(),
+                            template.getMemory(), template.getNetworkBandwidth(), template.getCost()));
+                }
+            }
+            // As many as on an average computer.
+            int processesPerComputer = Math.max(1, benchmark.processes.size() / benchmark.computers.size());
+            movedProcesses.clear();
+            originalComputers.clear();
+            targetComputers.clear();
+            for (CloudComputer computer : addedComputers) {
+                for (int i = 0; i < processesPerComputer; i++) {
+                    CloudProcess process = benchmark.nextProcess();
+                    if (!movedProcesses.contains(process)) {
+                        movedProcesses.add(process);
+                        originalComputers.add(process.getComputer());
+                        targetComputers.add(computer);
+                    }
+                }
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void restore() {
+            for (int i = 0; i < movedProcesses.size(); i++) {
+                MoveFixture.changeComputer(benchmark.session, movedProcesses.get(i), originalComputers.get(i), false);
+            }
+            addedComputers.forEach(benchmark.session::delete);
+            benchmark.session.fireAllRules();
+        }
+    }
+
+    @Benchmark
+    public Blackhole addComputers(Blackhole bh, ComputerAddition addition) {
+        addition.addedComputers.forEach(session::insert);
+        for (int i = 0; i < addition.movedProcesses.size(); i++) {
+            MoveFixture.changeComputer(session, addition.movedProcesses.get(i), addition.targetComputers.get(i),
+                    false);
+        }
+        return MoveFixture.evaluate(session, bh);
+    }
+
+    @State(Scope.Thread)
+    public static class ProcessAddition {
+
+        // The same new processes in every invocation, so that the IDs do not keep growing.
+        private final List<CloudProcess> addedProcesses = new ArrayList<>();
+        private ProblemChangeBenchmark benchmark;
+
+        @Setup(Level.Invocation)
+        public void pick(ProblemChangeBenchmark benchmark) {
+            if (this.benchmark == null) { // See ComputerAddition.
+                this.benchmark = benchmark;
+                for (int i = 0; i < benchmark.burstSize; i++) {
+                    CloudProcess template = benchmark.nextProcess();
+                    addedProcesses.add(new CloudProcess(benchmark.nextProcessId + i, template.getRequiredCpuPower(),
+                            template.getRequiredMemory(), template.getRequiredNetworkBandwidth()));
+                }
+            }
+            for (CloudProcess process : addedProcesses) {
+                process.setComputer(benchmark.nextComputer());
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void restore() {
+            addedProcesses.forEach(benchmark.session::delete);
+            benchmark.session.fireAllRules();
+        }
+    }
+
+    @Benchmark
+    public Blackhole addProcesses(Blackhole bh, ProcessAddition addition) {
+        addition.addedProcesses.forEach(session::insert);
+        return MoveFixture.evaluate(session, bh);
+    }
+
+    @State(Scope.Thread)
+    public static class ProcessRemoval {
+
+        private final List<CloudProcess> removedProcesses = new ArrayList<>();
+        private ProblemChangeBenchmark benchmark;
+
+        @Setup(Level.Invocation)
+        public void pick(ProblemChangeBenchmark benchmark) {
+            this.benchmark = benchmark;
+            removedProcesses.clear();
+            for (int i = 0; i < benchmark.burstSize; i++) {
+                removedProcesses.add(benchmark.nextProcessExcept(removedProcesses));
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void restore() {
+            removedProcesses.forEach(benchmark.session::insert);
+            benchmark.session.fireAllRules();
+        }
+    }
+
+    @Benchmark
+    public Blackhole removeProcesses(Blackhole bh, ProcessRemoval removal) {
+        removal.removedProcesses.forEach(session::delete);
+        return MoveFixture.evaluate(session, bh);
+    }
+}
@@ -0,0 +1,207 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.Map;
+
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+import org.kie.api.event.rule.DefaultRuleRuntimeEventListener;
+import org.kie.api.event.rule.MatchCancelledEvent;
+import org.kie.api.event.rule.MatchCreatedEvent;
+import org.kie.api.event.rule.ObjectDeletedEvent;
+import org.kie.api.event.rule.ObjectInsertedEvent;
+import org.kie.api.event.rule.ObjectUpdatedEvent;
+import org.kie.api.runtime.KieSession;
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+
+/**
+ * Counts what the rule engine does: matches created, cancelled and fired, facts inserted, updated and deleted,
+ * and the time spent in {@link ScoreSession#fireAllRules()}.
+ * Facts inserted and deleted by the rules themselves are counted too,
+ * which is how the churn of the GroupKey facts of the groupBy emulation shows;
+ * the executable model's groupBy keeps its groups internal, so it has no such churn.
+ * <p>
+ * Only {@link RuleEngineProfiler} enables it.
+ * Until then, {@link #instrument(ScoreSession)} returns the session unchanged, so nothing is attached or counted.
+ * The counters are plain static fields, as a fork only ever runs a single session from a single thread.
+ */
+public final class RuleEngineInstrumentation {
+
+    enum Counter {
+        MATCHES_CREATED("matches.created", "#/op"),
+        MATCHES_CANCELLED("matches.cancelled", "#/op"),
+        MATCHES_FIRED("matches.fired", "#/op"),
+        FACTS_INSERTED("facts.inserted", "#/op"),
+        FACTS_UPDATED("facts.updated", "#/op"),
+        FACTS_DELETED("facts.deleted", "#/op"),
+        GROUP_KEYS_INSERTED("groupKeys.inserted", "#/op"),
+        GROUP_KEYS_DELETED("groupKeys.deleted", "#/op"),
+        FIRE_TIME("fire.time", "ns/op");
+
+        final String label;
+        final String unit;
+
+        Counter(String label, String unit) {
+            this.label = label;
+            this.unit = unit;
+        }
+    }
+
+    static final long[] COUNTS = new long[Counter.values().length];
+
+    private static final DefaultAgendaEventListener AGENDA_LISTENER = new DefaultAgendaEventListener() {
+
+        @Override
+        public void matchCreated(MatchCreatedEvent event) {
+            count(Counter.MATCHES_CREATED);
+        }
+
+        @Override
+        public void matchCancelled(MatchCancelledEvent event) {
+            count(Counter.MATCHES_CANCELLED);
+        }
+
+        @Override
+        public void afterMatchFired(AfterMatchFiredEvent event) {
+            count(Counter.MATCHES_FIRED);
+        }
+    };
+
+    private static final DefaultRuleRuntimeEventListener RULE_RUNTIME_LISTENER = new DefaultRuleRuntimeEventListener() {
+
+        @Override
+        public void objectInserted(ObjectInsertedEvent event) {
+            count(Counter.FACTS_INSERTED);
+            if (isGroupKey(event.getObject())) {
+                count(Counter.GROUP_KEYS_INSERTED);
+            }
+        }
+
+        @Override
+        public void objectUpdated(ObjectUpdatedEvent event) {
+            count(Counter.FACTS_UPDATED);
+        }
+
+        @Override
+        public void objectDeleted(ObjectDeletedEvent event) {
+            count(Counter.FACTS_DELETED);
+            if (isGroupKey(event.getOldObject())) {
+                count(Counter.GROUP_KEYS_DELETED);
+            }
+        }
+    };
+
+    private static boolean enabled = false;
+    private static boolean paused = false;
+
+    private RuleEngineInstrumentation() {
+    }
+
+    static void enable() {
+        enabled = true;
+    }
+
+    static void reset() {
+        for (int i = 0; i < COUNTS.length; i++) {
+            COUNTS[i] = 0L;
+        }
+    }
+
+    /**
+     * Stops counting until {@link #resume()}, so that work done outside of the measured moves is left out.
+     */
+    public static void pause() {
+        paused = true;
+    }
+
+    public static void resume() {
+        paused = false;
+    }
+
+    private static void count(Counter counter) {
+        if (!paused) {
+            COUNTS[counter.ordinal()]++;
+        }
+    }
+
+    private static boolean isGroupKey(Object fact) {
+        return fact instanceof GroupKey || fact instanceof GroupKey2 || fact instanceof GroupKey3;
+    }
+
+    /**
+     * @return the same session if not enabled, otherwise a session which counts
+     */
+    public static ScoreSession instrument(ScoreSession session) {
+        if (!enabled) {
+            return session;
+        }
+        if (session instanceof KieBasedScoreSession) {
+            attach(((KieBasedScoreSession) session).getKieSession());
+        }
+        return new InstrumentedScoreSession(session);
+    }
+
+    /**
+     * Unlike {@link #instrument(ScoreSession)}, attaches the listeners even if not enabled.
+     *
+     * @return the session, for chaining
+     */
+    public static KieSession attach(KieSession session) {
+        session.addEventListener(AGENDA_LISTENER);
+        session.addEventListener(RULE_RUNTIME_LISTENER);
+        return session;
+    }
+
+    private static final class InstrumentedScoreSession implements ScoreSession {
+
+        private final ScoreSession delegate;
+
+        private InstrumentedScoreSession(ScoreSession delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void insert(Object fact) {
+            delegate.insert(fact);
+        }
+
+        @Override
+        public void delete(Object fact) {
+            delegate.delete(fact);
+        }
+
+        @Override
+        public void update(Object fact, String... modifiedProperties) {
+            delegate.update(fact, modifiedProperties);
+        }
+
+        @Override
+        public int fireAllRules() {
+            long start = System.nanoTime();
+            int fired = delegate.fireAllRules();
+            if (!paused) {
+                COUNTS[Counter.FIRE_TIME.ordinal()] += System.nanoTime() - start;
+            }
+            return fired;
+        }
+
+        @Override
+        public int getHardScore() {
+            return delegate.getHardScore();
+        }
+
+        @Override
+        public int getSoftScore() {
+            return delegate.getSoftScore();
+        }
+
+        @Override
+        public Map<CloudComputer, Indictments.Indictment> getIndictments() {
+            return delegate.getIndictments();
+        }
+
+        @Override
+        public void dispose() {
+            delegate.dispose();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * Reports the counters of {@link RuleEngineInstrumentation} per benchmark operation, next to the timings.
+ * Enable with "-prof org.optaplanner.examples.cloudbalancing.RuleEngineProfiler".
+ * An operation is a batch of moves in {@link Main}, a single move in {@link LocalSearchBenchmark}.
+ * Setup is not counted, including the reverts of {@link ScoreSessionSnapshot#fork()}.
+ */
+public final class RuleEngineProfiler implements InternalProfiler {
+
+    public RuleEngineProfiler() {
+        // Profilers are created in the fork before any benchmark state, so the sessions will be instrumented.
+        RuleEngineInstrumentation.enable();
+    }
+
+    @Override
+    public String getDescription() {
+        return "Rule engine activity per operation";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        RuleEngineInstrumentation.reset();
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams,
+            IterationParams iterationParams, IterationResult result) {
+        long operationCount = Math.max(1L, result.getMetadata().getAllOps());
+        List<Result> results = new ArrayList<>();
+        for (RuleEngineInstrumentation.Counter counter : RuleEngineInstrumentation.Counter.values()) {
+            double perOperation = (double) RuleEngineInstrumentation.COUNTS[counter.ordinal()] / operationCount;
+            results.add(new ScalarResult("rules." + counter.label, perOperation, counter.unit,
+                    AggregationPolicy.AVG));
+        }
+        return results;
+    }
+}
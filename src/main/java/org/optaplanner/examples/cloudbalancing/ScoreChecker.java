@@ -0,0 +1,109 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+import org.optaplanner.examples.cloudbalancing.domain.CloudProcess;
+
+/**
+ * Checks the incremental score of every engine against the score computed from scratch,
+ * after batches of random moves, some of which unassign the process.
+ * Batches alternate between in-place updates and deletes followed by inserts,
+ * as mixing the two in one batch is not supported, see {@link UpdateDeleteReproducer}.
+ * <p>
+ * Takes the dataset as the only, optional argument, see {@link Main#readSolution(String)};
+ * fails with an {@link IllegalStateException} if any engine disagrees.
+ */
+public final class ScoreChecker {
+
+    private static final String DEFAULT_DATASET = "generated-3000-overload0.3";
+    private static final int BATCH_COUNT = 30;
+    private static final int MAX_BATCH_SIZE = 5;
+    // One in so many moves unassigns the process.
+    private static final int UNASSIGN_RATIO = 10;
+
+    private ScoreChecker() {
+    }
+
+    public static void main(String[] args) {
+        String dataset = args.length == 0 ? DEFAULT_DATASET : args[0];
+        CloudBalance solution = Main.readSolution(dataset);
+        int failedCount = 0;
+        for (String scoreDirectorFactoryType : Main.SCORE_DIRECTOR_FACTORY_TYPES) {
+            int mismatchCount = check(scoreDirectorFactoryType, solution);
+            System.out.println(scoreDirectorFactoryType + ": " + mismatchCount + " of " + BATCH_COUNT
+                    + " batches scored wrong.");
+            if (mismatchCount != 0) {
+                failedCount++;
+            }
+        }
+        if (failedCount != 0) {
+            throw new IllegalStateException("The incremental score of " + failedCount + " of "
+                    + Main.SCORE_DIRECTOR_FACTORY_TYPES.length + " engines differs from the score computed from scratch"
+                    + " on the dataset (" + dataset + ").");
+        }
+    }
+
+    /**
+     * @return number of batches after which the score differed
+     */
+    private static int check(String scoreDirectorFactoryType, CloudBalance solution) {
+        List<CloudProcess> processes = solution.getProcessList();
+        List<CloudComputer> computers = solution.getComputerList();
+        Random random = new Random(0);
+        int mismatchCount = 0;
+        ScoreSessionSnapshot snapshot = Main.newSnapshot(scoreDirectorFactoryType, solution);
+        try {
+            for (int batch = 0; batch < BATCH_COUNT; batch++) {
+                ScoreSession session = snapshot.fork();
+                boolean inPlaceUpdate = batch % 2 == 0;
+                int batchSize = 1 + random.nextInt(MAX_BATCH_SIZE);
+                for (int i = 0; i < batchSize; i++) {
+                    CloudProcess process = processes.get(random.nextInt(processes.size()));
+                    CloudComputer computer = random.nextInt(UNASSIGN_RATIO) == 0 ? null
+                            : computers.get(random.nextInt(computers.size()));
+                    MoveFixture.changeComputer(session, process, computer, inPlaceUpdate);
+                }
+                session.fireAllRules();
+                String score = session.getHardScore() + "hard/" + session.getSoftScore() + "soft";
+                String expectedScore = computeScore(solution);
+                if (!score.equals(expectedScore)) {
+                    System.out.println(scoreDirectorFactoryType + ": batch " + batch + " scored " + score
+                            + " instead of " + expectedScore + ".");
+                    mismatchCount++;
+                }
+            }
+        } finally {
+            snapshot.dispose();
+        }
+        return mismatchCount;
+    }
+
+    private static String computeScore(CloudBalance solution) {
+        Map<CloudComputer, int[]> requiredTotalsByComputer = new IdentityHashMap<>();
+        for (CloudProcess process : solution.getProcessList()) {
+            if (process.getComputer() != null) {
+                int[] requiredTotals = requiredTotalsByComputer.computeIfAbsent(process.getComputer(),
+                        computer -> new int[3]);
+                requiredTotals[0] += process.getRequiredCpuPower();
+                requiredTotals[1] += process.getRequiredMemory();
+                requiredTotals[2] += process.getRequiredNetworkBandwidth();
+            }
+        }
+        int hardScore = 0;
+        int softScore = 0;
+        for (Map.Entry<CloudComputer, int[]> entry : requiredTotalsByComputer.entrySet()) {
+            CloudComputer computer = entry.getKey();
+            int[] requiredTotals = entry.getValue();
+            hardScore += Math.min(computer.getCpuPower() - requiredTotals[0], 0)
+                    + Math.min(computer.getMemory() - requiredTotals[1], 0)
+                    + Math.min(computer.getNetworkBandwidth() - requiredTotals[2], 0);
+            softScore -= computer.getCost();
+        }
+        return hardScore + "hard/" + softScore + "soft";
+    }
+}
@@ -0,0 +1,46 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.Map;
+
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+
+/**
+ * The subset of {@link org.kie.api.runtime.KieSession} that the benchmarks need,
+ * so that engines which are not built on Drools can be measured by the same code.
+ */
+public interface ScoreSession {
+
+    void insert(Object fact);
+
+    /**
+     * @param fact must have been previously inserted and must still be in the state it was inserted in
+     */
+    void delete(Object fact);
+
+    /**
+     * @param fact must have been previously inserted and must already have the new values of its properties
+     * @param modifiedProperties properties changed since the fact was inserted or last updated
+     */
+    void update(Object fact, String... modifiedProperties);
+
+    int fireAllRules();
+
+    /**
+     * @return sum of (capacity - required total) over every overloaded resource of every computer,
+     * as of the last fire
+     */
+    int getHardScore();
+
+    /**
+     * @return negative sum of the cost of every computer with at least one process, as of the last fire
+     */
+    int getSoftScore();
+
+    /**
+     * @return null unless the session was created with indictment tracking;
+     * otherwise every computer over its CPU power as of the last fire, see {@link Indictments}
+     */
+    Map<CloudComputer, Indictments.Indictment> getIndictments();
+
+    void dispose();
+}
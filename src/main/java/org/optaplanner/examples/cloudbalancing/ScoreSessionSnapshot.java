@@ -0,0 +1,72 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+import org.optaplanner.examples.cloudbalancing.domain.CloudProcess;
+
+/**
+ * Holds a single session into which the whole solution has been inserted and fired once.
+ * Every {@link #fork()} brings that session back to the state it had right after the initial fire,
+ * by reinserting only the processes whose computer has changed since.
+ * That is far cheaper than building a new session, as the cost is proportional to the size of the last move,
+ * not to the size of the solution.
+ * (Marshalling the session is not an option, as unmarshalling reinserts every fact.)
+ * <p>
+ * Only one fork is live at a time; calling {@link #fork()} again invalidates the previous one.
+ * Forks may only reassign processes to other computers (delete, {@link CloudProcess#setComputer(CloudComputer)},
+ * insert) and must not be disposed; dispose of the snapshot instead.
+ */
+public final class ScoreSessionSnapshot {
+
+    private final ScoreSession session;
+    private final CloudProcess[] processes;
+    private final CloudComputer[] baselineComputers;
+
+    public ScoreSessionSnapshot(final Supplier<ScoreSession> sessionSupplier, final CloudBalance solution) {
+        List<CloudProcess> processList = solution.getProcessList();
+        processes = processList.toArray(new CloudProcess[0]);
+        baselineComputers = new CloudComputer[processes.length];
+        for (int i = 0; i < processes.length; i++) {
+            baselineComputers[i] = processes[i].getComputer();
+        }
+        session = RuleEngineInstrumentation.instrument(sessionSupplier.get());
+        RuleEngineInstrumentation.pause();
+        try {
+            processList.forEach(session::insert);
+            solution.getComputerList().forEach(session::insert);
+            session.fireAllRules();
+        } finally {
+            RuleEngineInstrumentation.resume();
+        }
+    }
+
+    public ScoreSession fork() {
+        RuleEngineInstrumentation.pause(); // The revert is not part of the next move.
+        try {
+            boolean changed = false;
+            for (int i = 0; i < processes.length; i++) {
+                CloudProcess process = processes[i];
+                CloudComputer baselineComputer = baselineComputers[i];
+                if (process.getComputer() != baselineComputer) {
+                    session.delete(process);
+                    process.setComputer(baselineComputer);
+                    session.insert(process);
+                    changed = true;
+                }
+            }
+            if (changed) {
+                session.fireAllRules();
+            }
+        } finally {
+            RuleEngineInstrumentation.resume();
+        }
+        return session;
+    }
+
+    public void dispose() {
+        session.dispose();
+    }
+}
@@ -0,0 +1,83 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
+
+/**
+ * Batches of moves evaluated by a {@link ShardedScoreSession}, as the number of shards grows.
+ * A batch touches most of the shards, which then fire in parallel; with a batch size of 1, at most two do.
+ * The sharded session moves every process by a delete and an insert, so every move here is made that way;
+ * no shards at all is the baseline, a single plain session, and one shard adds the cost of the routing to it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms8G", "-Xmx8G"})
+@Warmup(iterations = 1)
+public class ShardedEvaluationBenchmark {
+
+    @Param({"groupByDrl", "groupByDrlExec", "groupBy", "groupByInt", "accumulate", "accumulateExec",
+            "incremental"})
+    public String scoreDirectorFactoryType;
+    // 0 for a plain session.
+    @Param({"0", "1", "2", "4", "8"})
+    public int shardCount;
+    @Param({"generated-100000", "generated-1000000"})
+    public String dataset;
+    @Param({"1", "1000"})
+    public int batchSize;
+    private CloudBalance solutionToTest;
+    private ScoreSessionSnapshot snapshot;
+    private ScoreSession session;
+    private MoveFixture moves;
+
+    @Setup(Level.Trial)
+    public void createSnapshot() {
+        solutionToTest = Main.readSolution(dataset);
+        Supplier<ScoreSession> shardSupplier = Main.newSessionSupplier(scoreDirectorFactoryType);
+        snapshot = new ScoreSessionSnapshot(shardCount == 0 ? shardSupplier
+                : () -> new ShardedScoreSession(shardSupplier, shardCount), solutionToTest);
+        moves = new MoveFixture(dataset, solutionToTest);
+    }
+
+    @Setup(Level.Invocation)
+    public void createSession() {
+        session = snapshot.fork();
+    }
+
+    @TearDown(Level.Trial)
+    public void disposeSnapshot() {
+        snapshot.dispose();
+    }
+
+    @Benchmark
+    public Blackhole changeMove(Blackhole bh) {
+        for (int i = 0; i < batchSize; i++) {
+            moves.change(session, moves.nextChange(), false);
+        }
+        return MoveFixture.evaluate(session, bh);
+    }
+
+    @Benchmark
+    public Blackhole swapMove(Blackhole bh) {
+        for (int i = 0; i < batchSize; i++) {
+            moves.swap(session, moves.nextSwap(), false);
+        }
+        return MoveFixture.evaluate(session, bh);
+    }
+}
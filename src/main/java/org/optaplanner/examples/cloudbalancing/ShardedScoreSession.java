@@ -0,0 +1,183 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+import org.optaplanner.examples.cloudbalancing.domain.CloudProcess;
+
+/**
+ * Splits the solution by computer across several sessions, which fire in parallel.
+ * Every constraint is local to a computer, so a computer and all of its processes always share a shard,
+ * and the score is the sum of the scores of the shards.
+ * Every update of a process is a delete from the shard of its old computer and an insert into the shard of its new one;
+ * processes without a computer match nothing, and are kept in the first shard.
+ * <p>
+ * Only the shards changed since the last fire are fired, the last of them on the calling thread,
+ * so a single move never touches more than two shards and one thread switch.
+ */
+public final class ShardedScoreSession implements ScoreSession {
+
+    private final ScoreSession[] shards;
+    private final boolean[] dirty;
+    // The computer every fact was last routed by, as the processes may already have changed when they are updated.
+    private final Map<Object, CloudComputer> routingComputers = new IdentityHashMap<>();
+    private final ExecutorService executor;
+
+    /**
+     * @param shardSupplier creates the session of every shard
+     * @param shardCount at least 1
+     */
+    public ShardedScoreSession(final Supplier<ScoreSession> shardSupplier, final int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("The shardCount (" + shardCount + ") must be at least 1.");
+        }
+        shards = new ScoreSession[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = shardSupplier.get();
+        }
+        dirty = new boolean[shardCount];
+        executor = shardCount == 1 ? null : Executors.newFixedThreadPool(shardCount - 1, runnable -> {
+            Thread thread = new Thread(runnable, "shard");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static CloudComputer computerOf(final Object fact) {
+        if (fact instanceof CloudComputer) {
+            return (CloudComputer) fact;
+        } else if (fact instanceof CloudProcess) {
+            return ((CloudProcess) fact).getComputer();
+        } else {
+            return null;
+        }
+    }
+
+    private int shardOf(final CloudComputer computer) {
+        return computer == null ? 0 : (int) Math.floorMod(computer.getId(), (long) shards.length);
+    }
+
+    @Override
+    public void insert(final Object fact) {
+        CloudComputer computer = computerOf(fact);
+        int shard = shardOf(computer);
+        shards[shard].insert(fact);
+        routingComputers.put(fact, computer);
+        dirty[shard] = true;
+    }
+
+    @Override
+    public void delete(final Object fact) {
+        int shard = shardOf(routingComputers.remove(fact));
+        shards[shard].delete(fact);
+        dirty[shard] = true;
+    }
+
+    @Override
+    public void update(final Object fact, final String... modifiedProperties) {
+        if (!(fact instanceof CloudProcess)) { // Computers never change shards.
+            int shard = shardOf(routingComputers.get(fact));
+            shards[shard].update(fact, modifiedProperties);
+            dirty[shard] = true;
+            return;
+        }
+        // A batch crossing shards would mix updates and deletes, see UpdateDeleteReproducer;
+        // so every process is moved as a delete and an insert instead.
+        // The delete needs the process as it was inserted, so the old computer is put back for it.
+        CloudProcess process = (CloudProcess) fact;
+        CloudComputer oldComputer = routingComputers.get(process);
+        CloudComputer newComputer = process.getComputer();
+        int oldShard = shardOf(oldComputer);
+        int newShard = shardOf(newComputer);
+        process.setComputer(oldComputer);
+        shards[oldShard].delete(process);
+        process.setComputer(newComputer);
+        shards[newShard].insert(process);
+        routingComputers.put(process, newComputer);
+        dirty[oldShard] = true;
+        dirty[newShard] = true;
+    }
+
+    @Override
+    public int fireAllRules() {
+        int lastDirtyShard = -1;
+        List<Future<Integer>> futures = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            if (dirty[i]) {
+                if (lastDirtyShard >= 0) {
+                    futures.add(executor.submit(shards[lastDirtyShard]::fireAllRules));
+                }
+                lastDirtyShard = i;
+                dirty[i] = false;
+            }
+        }
+        if (lastDirtyShard < 0) {
+            return 0;
+        }
+        int fired = shards[lastDirtyShard].fireAllRules();
+        try {
+            for (Future<Integer> future : futures) {
+                fired += future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while firing the shards.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Firing a shard failed.", e.getCause());
+        }
+        return fired;
+    }
+
+    @Override
+    public int getHardScore() {
+        int hardScore = 0;
+        for (ScoreSession shard : shards) {
+            hardScore += shard.getHardScore();
+        }
+        return hardScore;
+    }
+
+    @Override
+    public int getSoftScore() {
+        int softScore = 0;
+        for (ScoreSession shard : shards) {
+            softScore += shard.getSoftScore();
+        }
+        return softScore;
+    }
+
+    /**
+     * Every computer is in a single shard, so the indictments of the shards never overlap.
+     *
+     * @return a copy
+     */
+    @Override
+    public Map<CloudComputer, Indictments.Indictment> getIndictments() {
+        if (shards[0].getIndictments() == null) {
+            return null;
+        }
+        Map<CloudComputer, Indictments.Indictment> indictments = new IdentityHashMap<>();
+        for (ScoreSession shard : shards) {
+            indictments.putAll(shard.getIndictments());
+        }
+        return indictments;
+    }
+
+    @Override
+    public void dispose() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        for (ScoreSession shard : shards) {
+            shard.dispose();
+        }
+    }
+}
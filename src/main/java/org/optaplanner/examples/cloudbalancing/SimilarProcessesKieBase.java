@@ -0,0 +1,90 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import org.drools.model.Global;
+import org.drools.model.Model;
+import org.drools.model.PatternDSL;
+import org.drools.model.Rule;
+import org.drools.model.Variable;
+import org.drools.model.functions.Function1;
+import org.drools.model.impl.ModelImpl;
+import org.drools.model.view.ViewItem;
+import org.drools.modelcompiler.builder.KieBaseBuilder;
+import org.drools.modelcompiler.dsl.pattern.D;
+import org.kie.api.KieBase;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.RuleContext;
+import org.optaplanner.examples.cloudbalancing.domain.CloudProcess;
+
+/**
+ * Executable model of the similarProcessesRules DRLs, which penalize processes of similar size sharing a computer.
+ * Processes are grouped by up to three keys: their computer, their CPU power bracket and their memory bracket.
+ * Every group is penalized by the square of its size, so the rule only exists to exercise groupBy on composite keys.
+ */
+public final class SimilarProcessesKieBase implements KieSessionSupplier {
+
+    private static final int CPU_POWER_BRACKET_WIDTH = 4;
+    private static final int MEMORY_BRACKET_WIDTH = 8;
+
+    private final KieBase cache;
+
+    /**
+     * @param keyCount 1 to 3
+     * @param groupKeys creates the keys of the groups; shared by all sessions, so they must not run concurrently
+     */
+    public SimilarProcessesKieBase(int keyCount, GroupKeyFactory groupKeys) {
+        Function1<CloudProcess, Object> groupKeyFunction;
+        switch (keyCount) {
+            case 1:
+                groupKeyFunction = p -> groupKeys.of(p.getComputer());
+                break;
+            case 2:
+                groupKeyFunction = p -> groupKeys.of(p.getComputer(), cpuPowerBracket(p.getRequiredCpuPower()));
+                break;
+            case 3:
+                groupKeyFunction = p -> groupKeys.of(p.getComputer(), cpuPowerBracket(p.getRequiredCpuPower()),
+                        memoryBracket(p.getRequiredMemory()));
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported keyCount (" + keyCount + ").");
+        }
+        // The global needs to be in the same package as the rules, or it will not be visible to the session.
+        String packageName = getClass().getPackage().getName();
+        Global<HardSoftScoreHolder> scoreHolderGlobal =
+                D.globalOf(HardSoftScoreHolder.class, packageName, HardSoftScoreHolder.GLOBAL_NAME);
+
+        // The primary pattern.
+        Variable<CloudProcess> processVar = PatternDSL.declarationOf(CloudProcess.class);
+        // Lambdas can not be introspected, so the properties they read need to be declared for property reactivity.
+        PatternDSL.PatternDef<CloudProcess> process = PatternDSL.pattern(processVar)
+                .expr("computerIsAssigned", p -> p.getComputer() != null,
+                        PatternDSL.reactOn("computer", "requiredCpuPower", "requiredMemory"));
+
+        // The groupBy pattern.
+        Variable<Object> groupKeyVar = PatternDSL.declarationOf(Object.class);
+        Variable<Integer> countVar = PatternDSL.declarationOf(Integer.class);
+        ViewItem groupBy = PatternDSL.groupBy(process, processVar, groupKeyVar, groupKeyFunction,
+                D.accFunction(IntCountAccumulateFunction::new).as(countVar));
+
+        Rule rule = D.rule(packageName, "similarProcesses")
+                .build(groupBy,
+                        D.on(scoreHolderGlobal, countVar)
+                                .execute((drools, scoreHolder, count) ->
+                                        scoreHolder.addSoftConstraintMatch((RuleContext) drools, -count * count)));
+        Model model = new ModelImpl().addGlobal(scoreHolderGlobal).addRule(rule);
+        cache = KieBaseBuilder.createKieBaseFromModel(model);
+    }
+
+    // Boxed, as brackets always end up in a group key; DRL then compares them with the keys as objects.
+    public static Integer cpuPowerBracket(int requiredCpuPower) {
+        return requiredCpuPower / CPU_POWER_BRACKET_WIDTH;
+    }
+
+    public static Integer memoryBracket(int requiredMemory) {
+        return requiredMemory / MEMORY_BRACKET_WIDTH;
+    }
+
+    @Override
+    public KieSession get() {
+        return HardSoftScoreHolder.attach(cache.newKieSession());
+    }
+}
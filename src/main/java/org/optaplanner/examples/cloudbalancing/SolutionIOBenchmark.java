@@ -0,0 +1,54 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
+
+/**
+ * Compares loading a dataset through XStream with loading its memory-mapped binary equivalent.
+ * Run with "-prof gc" to compare allocation as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms2G", "-Xmx2G"})
+@Warmup(iterations = 2)
+public class SolutionIOBenchmark {
+
+    @Param({"solved", "halfsolved", "nearlysolved", "unsolved"})
+    public String dataset;
+    private final SolutionIO<CloudBalance> xmlIO = new SolutionIO<>(CloudBalance.class);
+    private File xmlFile;
+    private File binaryFile;
+
+    @Setup(Level.Trial)
+    public void convert() {
+        xmlFile = new File("data/cloudbalancing/" + dataset + ".xml");
+        File binaryDirectory = new File("target/data/cloudbalancing");
+        binaryDirectory.mkdirs();
+        binaryFile = new File(binaryDirectory, dataset + ".bin");
+        CloudBalanceBinaryIO.convertXml(xmlFile, binaryFile);
+    }
+
+    @Benchmark
+    public CloudBalance readXml() {
+        return xmlIO.read(xmlFile);
+    }
+
+    @Benchmark
+    public CloudBalance readBinary() {
+        return CloudBalanceBinaryIO.read(binaryFile);
+    }
+}
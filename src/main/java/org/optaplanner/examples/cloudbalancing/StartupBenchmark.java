@@ -0,0 +1,124 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.kie.api.runtime.KieSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+import org.optaplanner.examples.cloudbalancing.domain.CloudBalance;
+
+/**
+ * Measures the time from a cold JVM to the first session, as every fork only runs a single shot.
+ * If the cache is empty, the first fork of every benchmark but {@link #build()} compiles the rules into it
+ * during setup, which warms up that fork; run with more forks than one to get the cold numbers.
+ * Once the cache is filled, the setup only checks that it is, so no rules are loaded before the shot.
+ * Nothing here refers to {@link Main}, whose static KieBases would otherwise be built before the shot.
+ * <p>
+ * The time to the first score adds reading a dataset to the cached rules, inserting it and firing:
+ * either XStream reads the whole solution before any fact is inserted,
+ * or {@link StreamingSolutionReader} inserts every fact as soon as it is parsed.
+ * <p>
+ * The "groupBy" type has nothing to compile, since its model is built from Java lambdas;
+ * both of its benchmarks therefore measure the same thing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 5, jvmArgs = {"-Xms2G", "-Xmx2G"})
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class StartupBenchmark {
+
+    @Param({"groupByDrl", "groupByDrlExec", "groupBy", "accumulate", "accumulateExec"})
+    public String scoreDirectorFactoryType;
+    private final KieModuleDiskCache diskCache = new KieModuleDiskCache(KieModuleDiskCache.DEFAULT_DIRECTORY);
+    private KieSession session;
+
+    private KieSessionSupplier newSupplier(KieModuleDiskCache diskCache) {
+        if (scoreDirectorFactoryType.equals("groupBy")) {
+            return new ExecModelBasedKieBase();
+        }
+        return new DrlBasedKieBase(getDrlResourceName(), scoreDirectorFactoryType.endsWith("Exec"), diskCache);
+    }
+
+    private String getDrlResourceName() {
+        switch (scoreDirectorFactoryType) {
+            case "groupByDrl":
+            case "groupByDrlExec":
+                return "cloudBalancingScoreRules3.drl";
+            case "accumulate":
+            case "accumulateExec":
+                return "cloudBalancingScoreRules.drl";
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void populateCache(BenchmarkParams params) {
+        if (!params.getBenchmark().endsWith("build") && !scoreDirectorFactoryType.equals("groupBy")) {
+            DrlBasedKieBase.populate(getDrlResourceName(), scoreDirectorFactoryType.endsWith("Exec"), diskCache);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeSession() {
+        session.dispose();
+    }
+
+    @Benchmark
+    public KieSession build() {
+        // The KieBase is only created with the first session, so that has to be part of the measurement.
+        session = newSupplier(null).get();
+        return session;
+    }
+
+    @Benchmark
+    public KieSession loadFromCache() {
+        session = newSupplier(diskCache).get();
+        return session;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Dataset {
+
+        @Param({"solved", "nearlysolved"})
+        public String dataset;
+        private File file;
+
+        @Setup(Level.Trial)
+        public void locate() {
+            file = new File("data/cloudbalancing/" + dataset + ".xml");
+        }
+    }
+
+    @Benchmark
+    public Blackhole firstScoreFromSolution(Dataset dataset, Blackhole bh) {
+        session = newSupplier(diskCache).get();
+        CloudBalance solution = new SolutionIO<CloudBalance>(CloudBalance.class).read(dataset.file);
+        solution.getComputerList().forEach(session::insert);
+        solution.getProcessList().forEach(session::insert);
+        return MoveFixture.evaluate(new KieBasedScoreSession(session), bh);
+    }
+
+    @Benchmark
+    public Blackhole firstScoreStreaming(Dataset dataset, Blackhole bh) {
+        session = newSupplier(diskCache).get();
+        StreamingSolutionReader.insertInto(dataset.file, session);
+        return MoveFixture.evaluate(new KieBasedScoreSession(session), bh);
+    }
+}
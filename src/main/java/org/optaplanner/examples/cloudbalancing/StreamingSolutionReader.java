@@ -0,0 +1,146 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.kie.api.runtime.KieSession;
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+import org.optaplanner.examples.cloudbalancing.domain.CloudProcess;
+
+/**
+ * Reads the XML written by {@link SolutionIO} with StAX and hands over every fact as soon as it is complete.
+ * Unlike XStream, it never holds the solution graph; the only state kept is the computers,
+ * as processes refer to them by their XStream ID.
+ * Computers therefore need to precede the processes that refer to them, which is how XStream writes them.
+ */
+final class StreamingSolutionReader {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newFactory();
+
+    private StreamingSolutionReader() {
+    }
+
+    /**
+     * @return number of facts inserted
+     */
+    public static int insertInto(File inputSolutionFile, KieSession session) {
+        return read(inputSolutionFile, session::insert);
+    }
+
+    public static int read(File inputSolutionFile, Consumer<Object> factConsumer) {
+        try (InputStream inputSolutionStream = Files.newInputStream(inputSolutionFile.toPath())) {
+            return read(inputSolutionStream, factConsumer);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed reading inputSolutionFile (" + inputSolutionFile + ").", e);
+        }
+    }
+
+    public static int read(InputStream inputSolutionStream, Consumer<Object> factConsumer) {
+        Map<String, CloudComputer> computerByXStreamId = new HashMap<>();
+        int factCount = 0;
+        try {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(inputSolutionStream, "UTF-8");
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                    switch (reader.getLocalName()) {
+                        case "CloudComputer":
+                            String xStreamId = reader.getAttributeValue(null, "id");
+                            CloudComputer computer = readComputer(reader);
+                            computerByXStreamId.put(xStreamId, computer);
+                            factConsumer.accept(computer);
+                            factCount++;
+                            break;
+                        case "CloudProcess":
+                            factConsumer.accept(readProcess(reader, computerByXStreamId));
+                            factCount++;
+                            break;
+                        default:
+                            // Containers and the solution's own fields; descend into them.
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Failed reading inputSolutionStream.", e);
+        }
+        return factCount;
+    }
+
+    private static CloudComputer readComputer(XMLStreamReader reader) throws XMLStreamException {
+        CloudComputer computer = new CloudComputer();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String name = reader.getLocalName();
+            String text = reader.getElementText();
+            switch (name) {
+                case "id":
+                    computer.setId(Long.valueOf(text));
+                    break;
+                case "cpuPower":
+                    computer.setCpuPower(Integer.parseInt(text));
+                    break;
+                case "memory":
+                    computer.setMemory(Integer.parseInt(text));
+                    break;
+                case "networkBandwidth":
+                    computer.setNetworkBandwidth(Integer.parseInt(text));
+                    break;
+                case "cost":
+                    computer.setCost(Integer.parseInt(text));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown CloudComputer element (" + name + ").");
+            }
+        }
+        return computer;
+    }
+
+    private static CloudProcess readProcess(XMLStreamReader reader, Map<String, CloudComputer> computerByXStreamId)
+            throws XMLStreamException {
+        CloudProcess process = new CloudProcess();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String name = reader.getLocalName();
+            if (name.equals("computer")) {
+                String reference = reader.getAttributeValue(null, "reference");
+                CloudComputer computer = computerByXStreamId.get(reference);
+                if (computer == null) {
+                    throw new IllegalArgumentException("CloudProcess refers to an unknown computer (" + reference
+                            + "), or to one which is not defined before it.");
+                }
+                process.setComputer(computer);
+                reader.nextTag(); // Skip to the end of the empty element.
+                continue;
+            }
+            String text = reader.getElementText();
+            switch (name) {
+                case "id":
+                    process.setId(Long.valueOf(text));
+                    break;
+                case "requiredCpuPower":
+                    process.setRequiredCpuPower(Integer.parseInt(text));
+                    break;
+                case "requiredMemory":
+                    process.setRequiredMemory(Integer.parseInt(text));
+                    break;
+                case "requiredNetworkBandwidth":
+                    process.setRequiredNetworkBandwidth(Integer.parseInt(text));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown CloudProcess element (" + name + ").");
+            }
+        }
+        return process;
+    }
+}
@@ -0,0 +1,68 @@
+package org.optaplanner.examples.cloudbalancing;
+
+import org.optaplanner.examples.cloudbalancing.domain.CloudComputer;
+import org.optaplanner.examples.cloudbalancing.domain.CloudProcess;
+
+/**
+ * Reproduces the Drools 7.43 bug that {@link ShardedScoreSession} and {@link ProblemChangeBenchmark} work around:
+ * when a process is updated and another one is deleted before the same fire,
+ * the "exists" of the computer cost constraint loses the match of their computer,
+ * even though the updated process is still on it.
+ * Either change on its own is fine, and so is moving the process by a delete and an insert instead of the update.
+ * The groupBy DRL has no "exists", as it tracks the computers in use by {@link GroupKey} facts, and is not affected.
+ * <p>
+ * One computer with two processes: the first is updated without any change, the second is deleted.
+ * Prints the soft score of every engine both ways; it should be the negated cost of the computer either way.
+ */
+public final class UpdateDeleteReproducer {
+
+    private static final int COST = 1;
+
+    private UpdateDeleteReproducer() {
+    }
+
+    public static void main(String[] args) {
+        int reproducedCount = 0;
+        for (String scoreDirectorFactoryType : Main.SCORE_DIRECTOR_FACTORY_TYPES) {
+            int updated = run(scoreDirectorFactoryType, true);
+            int reinserted = run(scoreDirectorFactoryType, false);
+            System.out.println(scoreDirectorFactoryType + ": update, delete: " + updated
+                    + "; delete, insert, delete: " + reinserted + " (expected " + -COST + ")");
+            if (updated != -COST) {
+                reproducedCount++;
+            }
+        }
+        System.out.println("Reproduced with " + reproducedCount + " of " + Main.SCORE_DIRECTOR_FACTORY_TYPES.length
+                + " engines.");
+    }
+
+    /**
+     * @param update true to update the first process, false to delete and insert it again
+     * @return the soft score after the fire
+     */
+    private static int run(String scoreDirectorFactoryType, boolean update) {
+        CloudComputer computer = new CloudComputer(0L, 100, 100, 100, COST);
+        CloudProcess process = new CloudProcess(0L, 1, 1, 1);
+        process.setComputer(computer);
+        CloudProcess otherProcess = new CloudProcess(1L, 1, 1, 1);
+        otherProcess.setComputer(computer);
+        ScoreSession session = Main.newSessionSupplier(scoreDirectorFactoryType).get();
+        try {
+            session.insert(computer);
+            session.insert(process);
+            session.insert(otherProcess);
+            session.fireAllRules();
+            if (update) {
+                session.update(process, MoveFixture.COMPUTER_PROPERTY);
+            } else {
+                session.delete(process);
+                session.insert(process);
+            }
+            session.delete(otherProcess);
+            session.fireAllRules();
+            return session.getSoftScore();
+        } finally {
+            session.dispose();
+        }
+    }
+}
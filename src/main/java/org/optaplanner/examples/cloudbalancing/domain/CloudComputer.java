@@ -17,8 +17,10 @@
 package org.optaplanner.examples.cloudbalancing.domain;
 
 import com.thoughtworks.xstream.annotations.XStreamAlias;
+import org.kie.api.definition.type.PropertyReactive;
 
 @XStreamAlias("CloudComputer")
+@PropertyReactive
 public class CloudComputer extends AbstractPersistable {
 
     private int cpuPower; // in gigahertz
@@ -17,8 +17,10 @@
 package org.optaplanner.examples.cloudbalancing.domain;
 
 import com.thoughtworks.xstream.annotations.XStreamAlias;
+import org.kie.api.definition.type.PropertyReactive;
 
 @XStreamAlias("CloudProcess")
+@PropertyReactive
 public class CloudProcess extends AbstractPersistable {
 
     private int requiredCpuPower; // in gigahertz